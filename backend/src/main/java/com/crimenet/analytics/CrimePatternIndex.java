@@ -0,0 +1,114 @@
+package com.crimenet.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Day-of-week x hour-of-day report counts, by when the incident happened
+ * ({@code incidentAt}, or {@code createdAt} when it is unset) in the analytics
+ * time zone. One 7x24 matrix is kept for every category and station
+ * combination, plus the per-category, per-station and overall totals, so a
+ * report updates four matrices and any query is a lookup.
+ */
+@Component
+@ConditionalOnProperty(name = "crimenet.analytics.projection.enabled", havingValue = "true", matchIfMissing = true)
+public class CrimePatternIndex implements ReportIndex {
+
+    private static final int HOURS = 24;
+    private static final int DAYS = 7;
+    // Slots 0..167 are (day - 1) * 24 + hour; the last slot holds the matrix total
+    private static final int TOTAL = DAYS * HOURS;
+
+    private final ReportProjection reportProjection;
+    private final ZoneId zoneId;
+    // A null category or station stands for all of them
+    private final Map<Key, long[]> matrices = new HashMap<>();
+
+    public CrimePatternIndex(ReportProjection reportProjection,
+            @Value("${crimenet.analytics.zone-id:UTC}") String zoneId) {
+        this.reportProjection = reportProjection;
+        this.zoneId = ZoneId.of(zoneId);
+        reportProjection.register(this);
+    }
+
+    private record Key(String category, String stationId) {
+    }
+
+    /**
+     * The counts for {@code category} at {@code stationId} (either may be null
+     * for all), as seven rows (Monday first) of 24 hourly counts.
+     */
+    public Map<String, Object> pattern(String category, String stationId) {
+        long[] counts = reportProjection.read(columns -> {
+            long[] matrix = matrices.get(new Key(category, stationId));
+            return matrix != null ? matrix.clone() : new long[TOTAL + 1];
+        });
+
+        List<String> days = new ArrayList<>();
+        List<long[]> rows = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            days.add(DayOfWeek.of(day + 1).name());
+            long[] row = new long[HOURS];
+            System.arraycopy(counts, day * HOURS, row, 0, HOURS);
+            rows.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("category", category);
+        result.put("stationId", stationId);
+        result.put("timeZone", zoneId.getId());
+        result.put("total", counts[TOTAL]);
+        result.put("days", days);
+        result.put("counts", rows);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        matrices.clear();
+    }
+
+    @Override
+    public void add(ReportColumns columns, int row) {
+        update(columns, row, 1);
+    }
+
+    @Override
+    public void remove(ReportColumns columns, int row) {
+        update(columns, row, -1);
+    }
+
+    private void update(ReportColumns columns, int row, int delta) {
+        long at = columns.incidentAt()[row] != Long.MIN_VALUE ? columns.incidentAt()[row] : columns.createdAt()[row];
+        if (at == Long.MIN_VALUE) {
+            return;
+        }
+        ZonedDateTime time = Instant.ofEpochMilli(at).atZone(zoneId);
+        int slot = (time.getDayOfWeek().getValue() - 1) * HOURS + time.getHour();
+        String category = columns.categories().decode(columns.category()[row]);
+        String stationId = columns.stations().decode(columns.station()[row]);
+        count(new Key(category, stationId), slot, delta);
+        count(new Key(category, null), slot, delta);
+        count(new Key(null, stationId), slot, delta);
+        count(new Key(null, null), slot, delta);
+    }
+
+    private void count(Key key, int slot, int delta) {
+        long[] matrix = matrices.computeIfAbsent(key, k -> new long[TOTAL + 1]);
+        matrix[slot] += delta;
+        matrix[TOTAL] += delta;
+        if (matrix[TOTAL] <= 0) {
+            matrices.remove(key);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.crimenet.analytics;
+
+/** Base-32 geohash encoding and decoding; a longer hash is a smaller cell nested inside every shorter prefix. */
+public final class GeoHash {
+
+    private static final String ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final char[] BASE32 = ALPHABET.toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean even = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (even) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /** The center of the cell {@code hash} names, as {latitude, longitude}. */
+    public static double[] center(String hash) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = ALPHABET.indexOf(hash.charAt(i));
+            if (ch < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + hash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((ch >> bit) & 1) == 1;
+                if (even) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+        }
+        return new double[] { (minLat + maxLat) / 2, (minLng + maxLng) / 2 };
+    }
+}
@@ -0,0 +1,87 @@
+package com.crimenet.analytics;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch with {@code 2^precision} one-byte
+ * registers (standard error about {@code 1.04 / sqrt(2^precision)}). Sketches
+ * of the same precision merge by taking the register-wise maximum, so per-day
+ * sketches can be combined over any range.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        this(precision, new byte[1 << precision]);
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /** Restores a sketch from {@link #toBytes()}; the precision is implied by the length. */
+    public static HyperLogLog fromBytes(byte[] registers) {
+        int precision = Integer.numberOfTrailingZeros(registers.length);
+        if (registers.length != 1 << precision) {
+            throw new IllegalArgumentException("Register count must be a power of two");
+        }
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    public HyperLogLog add(String value) {
+        long hash = Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8).asLong();
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits (1-based); the sentinel bit caps it
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+        return this;
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Small-range correction: linear counting over the empty registers
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(registers, registers.length);
+    }
+}
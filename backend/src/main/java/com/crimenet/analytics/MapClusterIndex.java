@@ -0,0 +1,162 @@
+package com.crimenet.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zoom-indexed point clusters over report coordinates. For every zoom level
+ * the Web Mercator world is split into tiles of 256px, each divided into
+ * {@value #CELLS_PER_TILE}x{@value #CELLS_PER_TILE} cells (64px clusters), and
+ * each cell keeps a count and coordinate sums for its centroid. Reports are
+ * added to and removed from one cell per level as they change, and a
+ * viewport query only touches the cells it covers.
+ */
+@Component
+@ConditionalOnProperty(name = "crimenet.analytics.projection.enabled", havingValue = "true", matchIfMissing = true)
+public class MapClusterIndex implements ReportIndex {
+
+    private static final int CELLS_PER_TILE = 4;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final ReportProjection reportProjection;
+    private final int maxZoom;
+    // levels.get(zoom): cell key -> cluster
+    private final List<Map<Long, Cluster>> levels = new ArrayList<>();
+
+    public MapClusterIndex(ReportProjection reportProjection,
+            @Value("${crimenet.analytics.map-clusters.max-zoom:14}") int maxZoom) {
+        this.reportProjection = reportProjection;
+        this.maxZoom = maxZoom;
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            levels.add(new HashMap<>());
+        }
+        reportProjection.register(this);
+    }
+
+    /**
+     * Clusters inside the bounding box at {@code zoom} (clamped to the
+     * configured maximum), each with its centroid and report count. A box with
+     * {@code minLng > maxLng} crosses the antimeridian.
+     */
+    public List<Map<String, Object>> clusters(double minLng, double minLat, double maxLng, double maxLat, int zoom) {
+        if (minLat > maxLat) {
+            throw new IllegalArgumentException("minLat must not exceed maxLat");
+        }
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        return reportProjection.read(columns -> {
+            List<Map<String, Object>> result = new ArrayList<>();
+            if (minLng <= maxLng) {
+                collect(level, minLng, minLat, maxLng, maxLat, result);
+            } else {
+                collect(level, minLng, minLat, 180.0, maxLat, result);
+                collect(level, -180.0, minLat, maxLng, maxLat, result);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public void clear() {
+        levels.forEach(Map::clear);
+    }
+
+    @Override
+    public void add(ReportColumns columns, int row) {
+        update(columns.latitude()[row], columns.longitude()[row], 1);
+    }
+
+    @Override
+    public void remove(ReportColumns columns, int row) {
+        update(columns.latitude()[row], columns.longitude()[row], -1);
+    }
+
+    private void update(double lat, double lng, int delta) {
+        if (Double.isNaN(lat) || Double.isNaN(lng)) {
+            return;
+        }
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            int cells = cellsPerSide(zoom);
+            long key = key(cellX(lng, cells), cellY(lat, cells));
+            Map<Long, Cluster> level = levels.get(zoom);
+            Cluster cluster = level.computeIfAbsent(key, k -> new Cluster());
+            cluster.count += delta;
+            cluster.latitudeSum += delta * lat;
+            cluster.longitudeSum += delta * lng;
+            if (cluster.count <= 0) {
+                level.remove(key);
+            }
+        }
+    }
+
+    private void collect(int zoom, double minLng, double minLat, double maxLng, double maxLat,
+            List<Map<String, Object>> result) {
+        int cells = cellsPerSide(zoom);
+        int minX = cellX(minLng, cells);
+        int maxX = cellX(maxLng, cells);
+        // Mercator y grows southwards
+        int minY = cellY(maxLat, cells);
+        int maxY = cellY(minLat, cells);
+        Map<Long, Cluster> level = levels.get(zoom);
+
+        long viewportCells = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (viewportCells <= level.size()) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    Cluster cluster = level.get(key(x, y));
+                    if (cluster != null) {
+                        result.add(cluster.toMap());
+                    }
+                }
+            }
+        } else {
+            // Fewer occupied cells than the viewport covers (zoomed out, sparse data): scan them instead
+            level.forEach((key, cluster) -> {
+                int x = (int) (key >>> 32);
+                int y = (int) (long) key;
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    result.add(cluster.toMap());
+                }
+            });
+        }
+    }
+
+    private static int cellsPerSide(int zoom) {
+        return CELLS_PER_TILE << zoom;
+    }
+
+    private static int cellX(double lng, int cells) {
+        double x = (lng + 180.0) / 360.0;
+        return Math.min(cells - 1, Math.max(0, (int) Math.floor(x * cells)));
+    }
+
+    private static int cellY(double lat, int cells) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat))));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return Math.min(cells - 1, Math.max(0, (int) Math.floor(y * cells)));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static final class Cluster {
+        private long count;
+        private double latitudeSum;
+        private double longitudeSum;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("latitude", latitudeSum / count);
+            item.put("longitude", longitudeSum / count);
+            item.put("count", count);
+            return item;
+        }
+    }
+}
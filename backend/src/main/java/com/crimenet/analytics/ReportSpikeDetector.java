@@ -0,0 +1,218 @@
+package com.crimenet.analytics;
+
+import com.crimenet.model.CrimeReport;
+import com.crimenet.repository.ReportRepository;
+import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming spike detection on report arrivals per area (a
+ * {@value ReportSketches#AREA_GEOHASH_LENGTH}-character geohash cell) and
+ * category. Each cell keeps two exponentially decayed report counts: a recent
+ * one with the window as time constant and a baseline one with the (much
+ * longer) baseline period. The baseline predicts how many reports the window
+ * should hold; a cell is flagged while its recent count is above that by more
+ * than {@code threshold} standard deviations (Poisson arrivals) and holds at
+ * least {@code min-reports}.
+ *
+ * State is a few numbers per cell, updated in O(1) per report, and a sweep
+ * once per window drops cells whose counts have decayed away. Reports are
+ * fed in as they are created on this instance; on startup the last
+ * {@value #SEED_BASELINES} baseline periods are replayed from Firestore so
+ * the baselines start out populated.
+ */
+@Component
+public class ReportSpikeDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportSpikeDetector.class);
+
+    private static final int SEED_BASELINES = 4;
+    // Cells whose counts decay below this are forgotten
+    private static final double MIN_COUNT = 0.01;
+    // Floor on the expected window count, so a cell without history needs a real burst to stand out
+    private static final double MIN_EXPECTED = 0.5;
+
+    private final ReportRepository reportRepository;
+    private final TaskScheduler taskScheduler;
+    private final double windowMillis;
+    private final double baselineMillis;
+    private final double threshold;
+    private final int minReports;
+    // "{area}/{category}" -> decayed counts
+    private final ConcurrentHashMap<String, Rate> rates = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ReportSpikeDetector(ReportRepository reportRepository, TaskScheduler taskScheduler,
+            @Value("${crimenet.analytics.anomalies.window-minutes:60}") long windowMinutes,
+            @Value("${crimenet.analytics.anomalies.baseline-days:7}") long baselineDays,
+            @Value("${crimenet.analytics.anomalies.threshold:4.0}") double threshold,
+            @Value("${crimenet.analytics.anomalies.min-reports:3}") int minReports) {
+        this.reportRepository = reportRepository;
+        this.taskScheduler = taskScheduler;
+        this.windowMillis = windowMinutes * 60_000.0;
+        this.baselineMillis = baselineDays * 86_400_000.0;
+        this.threshold = threshold;
+        this.minReports = minReports;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        // Replay off the startup thread; it reads every report of the seed period once
+        taskScheduler.schedule(this::replayRecentReports, Instant.now());
+        taskScheduler.scheduleWithFixedDelay(this::sweep, Duration.ofMillis((long) windowMillis));
+    }
+
+    /** False until the startup replay has finished (or failed). */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Counts a newly created report; reports without coordinates or creation time are ignored. */
+    public void record(CrimeReport report) {
+        String area = ReportSketches.areaOf(report);
+        if (area == null || report.getCreatedAt() == null) {
+            return;
+        }
+        String key = area + "/" + (report.getCategory() != null ? report.getCategory() : "UNKNOWN");
+        long at = millis(report.getCreatedAt());
+        rates.compute(key, (k, rate) -> {
+            Rate updated = rate != null ? rate : new Rate();
+            updated.add(at, windowMillis, baselineMillis);
+            return updated;
+        });
+    }
+
+    /**
+     * The flagged cells, highest score first: area, cell center, category,
+     * recent and expected report counts over the window, and the score in
+     * standard deviations.
+     */
+    public List<Map<String, Object>> anomalies(int limit) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> flagged = new ArrayList<>();
+        for (String key : rates.keySet()) {
+            // Evaluated under the map's lock for the key, so a concurrent report is not lost to pruning
+            rates.computeIfPresent(key, (k, rate) -> {
+                Rate.Counts counts = rate.countsAt(now, windowMillis, baselineMillis);
+                if (counts.isDecayed()) {
+                    return null;
+                }
+                double expected = Math.max(counts.baseline() * windowMillis / baselineMillis, MIN_EXPECTED);
+                // A decayed count over Poisson arrivals has half the variance of its mean
+                double score = (counts.recent() - expected) / Math.sqrt(expected / 2);
+                // Rounded: reports a few minutes old have already decayed slightly below 1 each
+                if (Math.round(counts.recent()) >= minReports && score > threshold) {
+                    flagged.add(toMap(k, counts, expected, score));
+                }
+                return rate;
+            });
+        }
+        flagged.sort((a, b) -> Double.compare((Double) b.get("score"), (Double) a.get("score")));
+        return flagged.subList(0, Math.min(limit, flagged.size()));
+    }
+
+    // Keeps the state proportional to the active cells when nobody polls the anomalies
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (String key : rates.keySet()) {
+            rates.computeIfPresent(key,
+                    (k, rate) -> rate.countsAt(now, windowMillis, baselineMillis).isDecayed() ? null : rate);
+        }
+    }
+
+    private void replayRecentReports() {
+        Timestamp startedAt = Timestamp.now();
+        long since = System.currentTimeMillis() - (long) (SEED_BASELINES * baselineMillis);
+        int replayed = 0;
+        try {
+            for (CrimeReport report : reportRepository.streamCreatedSince(Timestamp.ofTimeMicroseconds(since * 1000))
+                    .toIterable()) {
+                // Reports created since the replay started are recorded by the create path
+                if (report.getCreatedAt() != null && report.getCreatedAt().compareTo(startedAt) < 0) {
+                    record(report);
+                    replayed++;
+                }
+            }
+            logger.info("Seeded report spike detection with {} reports in {} cells", replayed, rates.size());
+        } catch (Exception e) {
+            logger.warn("Could not seed report spike detection, baselines start empty: {}", e.getMessage());
+        } finally {
+            ready = true;
+        }
+    }
+
+    private static Map<String, Object> toMap(String key, Rate.Counts counts, double expected, double score) {
+        int separator = key.indexOf('/');
+        String area = key.substring(0, separator);
+        double[] center = GeoHash.center(area);
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("area", area);
+        item.put("latitude", center[0]);
+        item.put("longitude", center[1]);
+        item.put("category", key.substring(separator + 1));
+        item.put("recentReports", Math.round(counts.recent() * 100) / 100.0);
+        item.put("expectedReports", Math.round(expected * 100) / 100.0);
+        item.put("score", Math.round(score * 100) / 100.0);
+        item.put("lastReportAt", Instant.ofEpochMilli(counts.lastReportAt()).toString());
+        return item;
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp.toDate().getTime();
+    }
+
+    /** Recent and baseline counts, each decayed exponentially with its own time constant. */
+    private static final class Rate {
+        private long updatedAt;
+        private long lastReportAt;
+        private double recent;
+        private double baseline;
+
+        private record Counts(double recent, double baseline, long lastReportAt) {
+            private boolean isDecayed() {
+                return recent < MIN_COUNT && baseline < MIN_COUNT;
+            }
+        }
+
+        private synchronized void add(long at, double window, double baselineWindow) {
+            if (at >= updatedAt) {
+                decayTo(at, window, baselineWindow);
+                recent += 1;
+                baseline += 1;
+            } else {
+                // Out of order (replay racing live reports): add the report's already-decayed weight
+                recent += Math.exp((at - updatedAt) / window);
+                baseline += Math.exp((at - updatedAt) / baselineWindow);
+            }
+            lastReportAt = Math.max(lastReportAt, at);
+        }
+
+        private synchronized Counts countsAt(long now, double window, double baselineWindow) {
+            if (now > updatedAt) {
+                decayTo(now, window, baselineWindow);
+            }
+            return new Counts(recent, baseline, lastReportAt);
+        }
+
+        private void decayTo(long at, double window, double baselineWindow) {
+            long elapsed = at - updatedAt;
+            recent *= Math.exp(-elapsed / window);
+            baseline *= Math.exp(-elapsed / baselineWindow);
+            updatedAt = at;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.crimenet.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter sketch keeping at most {@code capacity} counters.
+ * When a new key arrives and the sketch is full, it replaces the smallest
+ * counter and inherits its count as error, so every reported count
+ * overestimates the true one by at most its {@code error}. Any key with more
+ * than {@code total / capacity} occurrences is guaranteed to be kept.
+ * Sketches merge by adding counts and errors and keeping the largest
+ * {@code capacity} counters. A full sketch may have seen a key it does not
+ * track up to its smallest count times, so that count is added (as count and
+ * as error) to the keys only the other sketch tracks, and the bounds above
+ * hold for merged sketches too.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, long[]> counters = new HashMap<>();
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public SpaceSaving add(String key) {
+        return add(key, 1, 0);
+    }
+
+    /** Adds {@code count} occurrences of {@code key} known up to {@code error} (used when restoring a sketch). */
+    public SpaceSaving add(String key, long count, long error) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            counter[1] += error;
+        } else if (counters.size() < capacity) {
+            counters.put(key, new long[] { count, error });
+        } else {
+            String evicted = smallest();
+            long[] min = counters.remove(evicted);
+            counters.put(key, new long[] { min[0] + count, min[0] + error });
+        }
+        return this;
+    }
+
+    public SpaceSaving merge(SpaceSaving other) {
+        long untrackedHere = isFull() ? counters.get(smallest())[0] : 0;
+        long untrackedThere = other.isFull() ? other.counters.get(other.smallest())[0] : 0;
+        counters.forEach((key, counter) -> {
+            long[] theirs = other.counters.get(key);
+            counter[0] += theirs != null ? theirs[0] : untrackedThere;
+            counter[1] += theirs != null ? theirs[1] : untrackedThere;
+        });
+        other.counters.forEach((key, theirs) -> counters.computeIfAbsent(key,
+                k -> new long[] { theirs[0] + untrackedHere, theirs[1] + untrackedHere }));
+
+        if (counters.size() > capacity) {
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(counters.entrySet());
+            entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]));
+            for (Map.Entry<String, long[]> entry : entries.subList(0, entries.size() - capacity)) {
+                counters.remove(entry.getKey());
+            }
+        }
+        return this;
+    }
+
+    /** The {@code limit} largest counters as {@code key}, {@code count} and {@code error}, largest first. */
+    public List<Map<String, Object>> top(int limit) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]).reversed());
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("key", entry.getKey());
+            item.put("count", entry.getValue()[0]);
+            item.put("error", entry.getValue()[1]);
+            top.add(item);
+        }
+        return top;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private boolean isFull() {
+        return counters.size() >= capacity;
+    }
+
+    private String smallest() {
+        String smallest = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < min) {
+                min = entry.getValue()[0];
+                smallest = entry.getKey();
+            }
+        }
+        return smallest;
+    }
+}
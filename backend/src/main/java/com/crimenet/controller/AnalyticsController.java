@@ -1,20 +1,35 @@
 package com.crimenet.controller;
 
+import com.crimenet.analytics.ReportSpikeDetector;
 import com.crimenet.service.AnalyticsService;
+import com.crimenet.service.ReportExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 @RestController
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final ReportExportService reportExportService;
+    private final ReportSpikeDetector reportSpikeDetector;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, ReportExportService reportExportService,
+            ReportSpikeDetector reportSpikeDetector) {
         this.analyticsService = analyticsService;
+        this.reportExportService = reportExportService;
+        this.reportSpikeDetector = reportSpikeDetector;
     }
 
     @GetMapping("/statistics")
@@ -28,6 +43,102 @@ public class AnalyticsController {
         }
     }
 
+    @PostMapping("/statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildStatistics() {
+        try {
+            analyticsService.rebuildStatistics();
+            return ResponseEntity.ok(analyticsService.getStatistics());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildDailyRollups() {
+        try {
+            return ResponseEntity.ok(Map.of("days", analyticsService.rebuildDailyRollups()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams every report created in [from, to] (ISO dates, both optional) as
+     * CSV or NDJSON, reading one page of reports at a time.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportReports(@RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String from, @RequestParam(required = false) String to) {
+        try {
+            String exportFormat = ReportExportService.format(format);
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+            LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+            if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+                return ResponseEntity.badRequest().build();
+            }
+            StreamingResponseBody body = out -> {
+                try {
+                    reportExportService.export(exportFormat, fromDate, toDate, out);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            };
+            boolean csv = ReportExportService.CSV.equals(exportFormat);
+            return ResponseEntity.ok()
+                    .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                            : MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"reports." + exportFormat + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Areas and categories whose report rate over the last window is far above
+     * their baseline, from the in-memory spike detector; 503 until it has
+     * replayed recent reports on startup.
+     */
+    @GetMapping("/anomalies")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<?> getAnomalies(@RequestParam(defaultValue = "50") int limit) {
+        if (!reportSpikeDetector.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.ok(reportSpikeDetector.anomalies(Math.max(limit, 0)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/resolution-times")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> getResolutionTimes() {
+        try {
+            return ResponseEntity.ok(analyticsService.getResolutionTimes());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/resolution-times/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildResolutionTimes() {
+        try {
+            return ResponseEntity.ok(Map.of("durations", analyticsService.rebuildResolutionTimes()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/reports/by-category")
     @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
     public ResponseEntity<Map<String, Integer>> getReportsByCategory() {
@@ -91,6 +202,27 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/unique-reporters")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUniqueReporters(@RequestParam(defaultValue = "30") int days) {
+        try {
+            return ResponseEntity.ok(analyticsService.getUniqueReporters(days));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/top-locations")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<?> getTopLocations(@RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(analyticsService.getTopLocations(days, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/user-stats")
     @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
     public ResponseEntity<Map<String, Object>> getUserStats(org.springframework.security.core.Authentication auth) {
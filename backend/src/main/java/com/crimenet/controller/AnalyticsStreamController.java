@@ -0,0 +1,46 @@
+package com.crimenet.controller;
+
+import com.crimenet.service.AnalyticsService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Streaming (NDJSON) variants of the list-shaped analytics endpoints, enabled
+ * with the "reactive" profile and selected by
+ * {@code Accept: application/x-ndjson}. Reports are folded into counters as
+ * they arrive instead of being loaded into a list first.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/api/analytics", produces = MediaType.APPLICATION_NDJSON_VALUE)
+public class AnalyticsStreamController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsStreamController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/crimes-by-category")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<Map<String, Object>> streamCrimesByCategory(@RequestParam(defaultValue = "30") int days) {
+        return analyticsService.streamCrimesByCategory(days);
+    }
+
+    @GetMapping("/crimes-by-status")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<Map<String, Object>> streamCrimesByStatus(@RequestParam(defaultValue = "30") int days) {
+        return analyticsService.streamCrimesByStatus(days);
+    }
+
+    @GetMapping("/crime-trends")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<Map<String, Object>> streamCrimeTrends(@RequestParam(defaultValue = "30") int days) {
+        return analyticsService.streamCrimeTrends(days);
+    }
+}
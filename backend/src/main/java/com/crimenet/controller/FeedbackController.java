@@ -78,6 +78,29 @@ public class FeedbackController {
         return ResponseEntity.ok(Map.of("averageRating", avgRating));
     }
 
+    /**
+     * Officers ranked by rating, served from memory
+     * GET /api/feedback/leaderboard?limit=20&minRatings=1
+     */
+    @GetMapping("/leaderboard")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getOfficerLeaderboard(
+            @RequestParam(defaultValue = "20") int limit, @RequestParam(defaultValue = "1") int minRatings)
+            throws ExecutionException, InterruptedException {
+        return ResponseEntity.ok(feedbackService.getOfficerLeaderboard(limit, minRatings));
+    }
+
+    /**
+     * Rebuild every officer's rating aggregate from the feedback (admin only)
+     * POST /api/feedback/ratings/rebuild
+     */
+    @PostMapping("/ratings/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildOfficerRatings()
+            throws ExecutionException, InterruptedException {
+        return ResponseEntity.ok(Map.of("officers", feedbackService.rebuildOfficerRatings()));
+    }
+
     /**
      * Get all feedback submitted by a user
      * GET /api/feedback/user/{userId}
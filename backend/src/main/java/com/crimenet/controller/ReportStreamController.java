@@ -0,0 +1,52 @@
+package com.crimenet.controller;
+
+import com.crimenet.model.CrimeReport;
+import com.crimenet.model.ReportTimeline;
+import com.crimenet.service.ReportService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming (NDJSON) variants of the report read endpoints, enabled with the
+ * "reactive" profile. Selected when the client sends
+ * {@code Accept: application/x-ndjson}; other requests still go to
+ * {@link ReportController}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/api/reports", produces = MediaType.APPLICATION_NDJSON_VALUE)
+public class ReportStreamController {
+
+    private final ReportService reportService;
+
+    public ReportStreamController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @GetMapping("/user/{userId}")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<CrimeReport> streamUserReports(@PathVariable String userId) {
+        return reportService.streamReportsByUser(userId);
+    }
+
+    @GetMapping("/status/{status}")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public Flux<CrimeReport> streamReportsByStatus(@PathVariable String status) {
+        return reportService.streamReportsByStatus(status);
+    }
+
+    @GetMapping("/{reportId}/timeline")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<ReportTimeline> streamTimeline(@PathVariable String reportId) {
+        return reportService.streamTimeline(reportId);
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public Flux<CrimeReport> streamAllReports() {
+        return reportService.streamAllReports();
+    }
+}
@@ -2,6 +2,7 @@ package com.crimenet.controller;
 
 import com.crimenet.model.User;
 import com.crimenet.security.FirebaseUserDetails;
+import com.crimenet.service.AuthService;
 import com.crimenet.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,9 +16,11 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final AuthService authService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AuthService authService) {
         this.userService = userService;
+        this.authService = authService;
     }
 
     @GetMapping("/{uid}")
@@ -60,6 +63,7 @@ public class UserController {
     public ResponseEntity<Void> deleteUser(@PathVariable String uid) {
         try {
             userService.deleteUser(uid);
+            authService.invalidateRole(uid);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -91,8 +95,9 @@ public class UserController {
             if (user == null) {
                 return ResponseEntity.notFound().build();
             }
-            user.setRole(newRole);
-            userService.updateUser(uid, user);
+            userService.updateUserRole(uid, newRole);
+            // Keep the custom claim in sync and make the change visible to the auth filter now
+            authService.setUserRole(uid, newRole);
             return ResponseEntity.ok(java.util.Map.of("message", "Role updated successfully", "role", newRole));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
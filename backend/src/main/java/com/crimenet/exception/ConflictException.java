@@ -0,0 +1,11 @@
+package com.crimenet.exception;
+
+/**
+ * A write lost an optimistic-concurrency race: the document changed between the
+ * read and the write. Retrying the whole read-modify-write is safe.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.crimenet.repository;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Changes to the counters of one counters document, keyed by dotted counter
+ * name (e.g. {@code reports.byStatus.PENDING}). Repositories apply them in the
+ * same batch as the entity write they describe. A plain instance targets the
+ * platform statistics document; {@link DailyRollupRepository#deltasFor} targets
+ * a daily rollup.
+ */
+public final class CounterDeltas {
+
+    private final String collection;
+    private final String documentId;
+    private final Map<String, Long> deltas = new HashMap<>();
+
+    public CounterDeltas() {
+        this(StatisticsRepository.COLLECTION_NAME, StatisticsRepository.DOCUMENT_ID);
+    }
+
+    CounterDeltas(String collection, String documentId) {
+        this.collection = collection;
+        this.documentId = documentId;
+    }
+
+    public CounterDeltas add(String counter, long delta) {
+        if (delta != 0) {
+            deltas.merge(counter, delta, Long::sum);
+        }
+        return this;
+    }
+
+    /** Counts an entity into (delta 1) or out of (delta -1) a bucket of a group such as status or role. */
+    public CounterDeltas add(String group, String bucket, long delta) {
+        return add(group + "." + (bucket != null ? bucket : "UNKNOWN"), delta);
+    }
+
+    /** Moves one entity from one bucket of a group to another; a no-op when the bucket did not change. */
+    public CounterDeltas move(String group, String from, String to) {
+        if (!Objects.equals(from, to)) {
+            add(group, from, -1);
+            add(group, to, 1);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return deltas.values().stream().allMatch(delta -> delta == 0);
+    }
+
+    public Map<String, Long> asMap() {
+        return Collections.unmodifiableMap(deltas);
+    }
+
+    DocumentReference document(Firestore firestore) {
+        return firestore.collection(collection).document(documentId);
+    }
+}
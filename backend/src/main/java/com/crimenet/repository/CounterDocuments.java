@@ -0,0 +1,126 @@
+package com.crimenet.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.UpdateBuilder;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Reading and writing of counters documents, whose counters are stored as
+ * nested maps ({@code reports.byStatus.PENDING} is field {@code PENDING} of
+ * map {@code byStatus} of map {@code reports}) and exposed as dotted names.
+ */
+final class CounterDocuments {
+
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private CounterDocuments() {
+    }
+
+    /**
+     * Adds atomic increments for each non-empty set of deltas to a batch or
+     * transaction that is about to be committed.
+     */
+    static void increment(Firestore firestore, UpdateBuilder<?> batch, CounterDeltas... counters) {
+        for (CounterDeltas deltas : counters) {
+            if (deltas == null || deltas.isEmpty()) {
+                continue;
+            }
+            batch.set(deltas.document(firestore), nest(deltas.asMap(), FieldValue::increment), SetOptions.merge());
+        }
+    }
+
+    private static void commitAll(List<WriteBatch> batches) throws ExecutionException, InterruptedException {
+        List<CompletableFuture<?>> commits = new ArrayList<>();
+        for (WriteBatch batch : batches) {
+            commits.add(FirestoreFutures.toCompletable(batch.commit()));
+        }
+        CompletableFuture.allOf(commits.toArray(new CompletableFuture[0])).get();
+    }
+
+    /**
+     * Brings the counters documents of a collection to {@code rebuilt}
+     * (counters by document id), computed from sources read through the same
+     * snapshot as {@code stored}. The difference between the two is written as
+     * increments, so increments committed after the read time stay on top of
+     * the rebuilt values instead of being overwritten. Documents that are no
+     * longer rebuilt are counted down to zero rather than deleted, for the same
+     * reason.
+     */
+    static void applyRebuild(Firestore firestore, CollectionSnapshot stored, Map<String, Map<String, Long>> rebuilt)
+            throws ExecutionException, InterruptedException {
+        Set<String> ids = new HashSet<>(rebuilt.keySet());
+        ids.addAll(stored.documents().keySet());
+        List<CounterDeltas> changes = new ArrayList<>();
+        for (String id : ids) {
+            DocumentSnapshot document = stored.documents().get(id);
+            Map<String, Long> previous = document != null && document.getData() != null
+                    ? flatten(document.getData())
+                    : Map.of();
+            Map<String, Long> next = rebuilt.getOrDefault(id, Map.of());
+            CounterDeltas deltas = new CounterDeltas(stored.collectionName(), id);
+            next.forEach((counter, value) -> deltas.add(counter, value - previous.getOrDefault(counter, 0L)));
+            previous.forEach((counter, value) -> {
+                if (!next.containsKey(counter)) {
+                    deltas.add(counter, -value);
+                }
+            });
+            if (!deltas.isEmpty()) {
+                changes.add(deltas);
+            }
+        }
+
+        List<WriteBatch> batches = new ArrayList<>();
+        for (int from = 0; from < changes.size(); from += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            increment(firestore, batch, changes.subList(from, Math.min(from + MAX_BATCH_WRITES, changes.size()))
+                    .toArray(new CounterDeltas[0]));
+            batches.add(batch);
+        }
+        commitAll(batches);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> nest(Map<String, Long> counters, Function<Long, Object> toValue) {
+        Map<String, Object> root = new HashMap<>();
+        counters.forEach((name, value) -> {
+            String[] path = name.split("\\.");
+            Map<String, Object> node = root;
+            for (int i = 0; i < path.length - 1; i++) {
+                node = (Map<String, Object>) node.computeIfAbsent(path[i], key -> new HashMap<String, Object>());
+            }
+            node.put(path[path.length - 1], toValue.apply(value));
+        });
+        return root;
+    }
+
+    static Map<String, Long> flatten(Map<String, Object> data) {
+        Map<String, Long> counters = new HashMap<>();
+        flatten("", data, counters);
+        return counters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String prefix, Map<String, Object> node, Map<String, Long> counters) {
+        node.forEach((key, value) -> {
+            String name = prefix.isEmpty() ? key : prefix + "." + key;
+            if (value instanceof Map) {
+                flatten(name, (Map<String, Object>) value, counters);
+            } else if (value instanceof Number number) {
+                counters.put(name, number.longValue());
+            }
+        });
+    }
+}
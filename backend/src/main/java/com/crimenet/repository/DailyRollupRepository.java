@@ -0,0 +1,107 @@
+package com.crimenet.repository;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Per-day report counters in {@code analytics_daily/{yyyy-MM-dd}}, bucketed by
+ * the day a report was created (in the configured analytics time zone). Each
+ * document holds {@code total} plus {@code byCategory.*}, {@code byStatus.*}
+ * and {@code byPriority.*} counts, so trends over any range are one range read
+ * of at most one document per day.
+ */
+@Repository
+public class DailyRollupRepository {
+
+    public static final String TOTAL = "total";
+    public static final String BY_CATEGORY = "byCategory";
+    public static final String BY_STATUS = "byStatus";
+    public static final String BY_PRIORITY = "byPriority";
+
+    private static final String COLLECTION_NAME = "analytics_daily";
+
+    private final Firestore firestore;
+    private final ZoneId zoneId;
+
+    public DailyRollupRepository(Firestore firestore,
+            @Value("${crimenet.analytics.zone-id:UTC}") String zoneId) {
+        this.firestore = firestore;
+        this.zoneId = ZoneId.of(zoneId);
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zoneId);
+    }
+
+    public LocalDate dayOf(Timestamp timestamp) {
+        return LocalDate.ofInstant(timestamp.toDate().toInstant(), zoneId);
+    }
+
+    /** The first instant of {@code day} in the analytics time zone. */
+    public Timestamp startOf(LocalDate day) {
+        return Timestamp.ofTimeSecondsAndNanos(day.atStartOfDay(zoneId).toEpochSecond(), 0);
+    }
+
+    /** Counter changes for the rollup of the day {@code createdAt} falls on, or {@code null} if it is unset. */
+    public CounterDeltas deltasFor(Timestamp createdAt) {
+        return createdAt != null ? new CounterDeltas(COLLECTION_NAME, dayOf(createdAt).toString()) : null;
+    }
+
+    /** Returns the flattened counters of every day in {@code [from, to]} that has a rollup, in date order. */
+    public SortedMap<LocalDate, Map<String, Long>> findRange(LocalDate from, LocalDate to)
+            throws ExecutionException, InterruptedException {
+        return findRangeAsync(from, to).get();
+    }
+
+    public CompletableFuture<SortedMap<LocalDate, Map<String, Long>>> findRangeAsync(LocalDate from, LocalDate to) {
+        // ISO dates sort lexicographically in date order, so the document id range is the date range
+        return FirestoreFutures.toCompletable(collection()
+                .whereGreaterThanOrEqualTo(FieldPath.documentId(), from.toString())
+                .whereLessThanOrEqualTo(FieldPath.documentId(), to.toString())
+                .get())
+                .thenApply(querySnapshot -> {
+                    SortedMap<LocalDate, Map<String, Long>> rollups = new TreeMap<>();
+                    querySnapshot.getDocuments().forEach(doc -> rollups.put(LocalDate.parse(doc.getId()),
+                            CounterDocuments.flatten(doc.getData())));
+                    return rollups;
+                });
+    }
+
+    public boolean isEmpty() throws ExecutionException, InterruptedException {
+        return collection().limit(1).get().get().isEmpty();
+    }
+
+    /** Every stored rollup as of the snapshot's read time, to be passed back to {@link #rebuild}. */
+    public CollectionSnapshot read(FirestoreSnapshot snapshot) throws ExecutionException, InterruptedException {
+        return snapshot.collection(collection());
+    }
+
+    /**
+     * Brings every rollup to {@code rollups}, counted from reports read through
+     * the same snapshot as {@code stored}. Reports created or updated after the
+     * read time keep their increments.
+     */
+    public void rebuild(CollectionSnapshot stored, Map<LocalDate, Map<String, Long>> rollups)
+            throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Long>> documents = new HashMap<>();
+        rollups.forEach((day, counters) -> documents.put(day.toString(), counters));
+        CounterDocuments.applyRebuild(firestore, stored, documents);
+    }
+
+    private CollectionReference collection() {
+        return firestore.collection(COLLECTION_NAME);
+    }
+}
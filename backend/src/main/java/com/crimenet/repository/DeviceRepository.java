@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -17,82 +18,95 @@ public class DeviceRepository {
     private static final String COLLECTION_NAME = "devices";
 
     public Device save(Device device) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        return saveAsync(device).get();
+    }
+
+    public CompletableFuture<Device> saveAsync(Device device) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(device.getUserDeviceId())
-                .set(device)
-                .get();
-        return device;
+                .set(device))
+                .thenApply(result -> device);
     }
 
     public Optional<Device> findById(String userDeviceId) throws ExecutionException, InterruptedException {
-        var doc = firestore.collection(COLLECTION_NAME)
-                .document(userDeviceId)
-                .get()
-                .get();
+        return findByIdAsync(userDeviceId).get();
+    }
 
-        if (doc.exists()) {
-            return Optional.of(doc.toObject(Device.class));
-        }
-        return Optional.empty();
+    public CompletableFuture<Optional<Device>> findByIdAsync(String userDeviceId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(userDeviceId)
+                .get())
+                .thenApply(doc -> doc.exists() ? Optional.of(doc.toObject(Device.class)) : Optional.empty());
     }
 
     // Find all devices for a user
     public List<Device> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("userId", userId)
-                .get()
-                .get();
+        return findByUserIdAsync(userId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Device.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Device>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments()
+                        .stream()
+                        .map(doc -> doc.toObject(Device.class))
+                        .collect(Collectors.toList()));
     }
 
     // Find active devices for a user (for push notifications)
     public List<Device> findActiveDevicesByUserId(String userId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findActiveDevicesByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<List<Device>> findActiveDevicesByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
                 .whereEqualTo("isActive", true)
-                .get()
-                .get();
-
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Device.class))
-                .collect(Collectors.toList());
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments()
+                        .stream()
+                        .map(doc -> doc.toObject(Device.class))
+                        .collect(Collectors.toList()));
     }
 
     // Find device by FCM token (for token refresh scenarios)
     public Optional<Device> findByFcmToken(String fcmToken) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findByFcmTokenAsync(fcmToken).get();
+    }
+
+    public CompletableFuture<Optional<Device>> findByFcmTokenAsync(String fcmToken) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("fcmToken", fcmToken)
                 .limit(1)
-                .get()
-                .get();
-
-        if (!querySnapshot.isEmpty()) {
-            return Optional.of(querySnapshot.getDocuments().get(0).toObject(Device.class));
-        }
-        return Optional.empty();
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.isEmpty()
+                        ? Optional.empty()
+                        : Optional.of(querySnapshot.getDocuments().get(0).toObject(Device.class)));
     }
 
     // Deactivate all other devices when a new primary device is registered
     public void deactivateOtherDevices(String userId, String exceptDeviceId)
             throws ExecutionException, InterruptedException {
         List<Device> devices = findByUserId(userId);
-        for (Device device : devices) {
-            if (!device.getUserDeviceId().equals(exceptDeviceId)) {
-                device.setIsActive(false);
-                save(device);
-            }
-        }
+        List<CompletableFuture<Device>> writes = devices.stream()
+                .filter(device -> !device.getUserDeviceId().equals(exceptDeviceId))
+                .map(device -> {
+                    device.setIsActive(false);
+                    return saveAsync(device);
+                })
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
     }
 
     public void delete(String userDeviceId) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        deleteAsync(userDeviceId).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String userDeviceId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(userDeviceId)
-                .delete()
-                .get();
+                .delete())
+                .thenApply(result -> null);
     }
 }
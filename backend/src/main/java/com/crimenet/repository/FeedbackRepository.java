@@ -1,14 +1,20 @@
 package com.crimenet.repository;
 
 import com.crimenet.model.Feedback;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Repository
@@ -17,91 +23,115 @@ public class FeedbackRepository {
     private final Firestore firestore;
     private static final String COLLECTION_NAME = "feedback";
 
-    public Feedback save(Feedback feedback) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
-                .document(feedback.getFeedbackId())
-                .set(feedback)
-                .get();
-        return feedback;
+    /**
+     * Saves the feedback and applies its rating counter changes in the same
+     * batch. There is no save without counters, so the officer rating
+     * aggregates cannot drift from the feedback collection.
+     */
+    public Feedback save(Feedback feedback, CounterDeltas counters) throws ExecutionException, InterruptedException {
+        return saveAsync(feedback, counters).get();
+    }
+
+    public CompletableFuture<Feedback> saveAsync(Feedback feedback, CounterDeltas counters) {
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_NAME).document(feedback.getFeedbackId()), feedback);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> feedback);
     }
 
     public Optional<Feedback> findById(String feedbackId) throws ExecutionException, InterruptedException {
-        var doc = firestore.collection(COLLECTION_NAME)
-                .document(feedbackId)
-                .get()
-                .get();
+        return findByIdAsync(feedbackId).get();
+    }
 
-        if (doc.exists()) {
-            return Optional.of(doc.toObject(Feedback.class));
-        }
-        return Optional.empty();
+    public CompletableFuture<Optional<Feedback>> findByIdAsync(String feedbackId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(feedbackId)
+                .get())
+                .thenApply(doc -> doc.exists() ? Optional.of(doc.toObject(Feedback.class)) : Optional.empty());
     }
 
     public List<Feedback> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("userId", userId)
-                .get()
-                .get();
+        return findByUserIdAsync(userId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Feedback.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Feedback>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .get())
+                .thenApply(FeedbackRepository::toFeedback);
     }
 
     public List<Feedback> findByOfficerId(String officerId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("officerId", officerId)
-                .get()
-                .get();
+        return findByOfficerIdAsync(officerId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Feedback.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Feedback>> findByOfficerIdAsync(String officerId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("officerId", officerId)
+                .get())
+                .thenApply(FeedbackRepository::toFeedback);
     }
 
     public List<Feedback> findByReportId(String reportId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("reportId", reportId)
-                .get()
-                .get();
+        return findByReportIdAsync(reportId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Feedback.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Feedback>> findByReportIdAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("reportId", reportId)
+                .get())
+                .thenApply(FeedbackRepository::toFeedback);
     }
 
     // Get all feedback (for admin/analytics)
     public List<Feedback> findAll() throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .get()
-                .get();
+        return findAllAsync().get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Feedback.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Feedback>> findAllAsync() {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .get())
+                .thenApply(FeedbackRepository::toFeedback);
     }
 
-    // Calculate average rating for an officer
-    public Double getAverageRatingByOfficer(String officerId) throws ExecutionException, InterruptedException {
-        List<Feedback> feedbacks = findByOfficerId(officerId);
-        if (feedbacks.isEmpty()) {
-            return 0.0;
-        }
+    /** Calls {@code action} for every feedback as of the snapshot's read time. */
+    public void forEach(FirestoreSnapshot snapshot, Consumer<Feedback> action)
+            throws ExecutionException, InterruptedException {
+        snapshot.forEach(firestore.collection(COLLECTION_NAME),
+                document -> action.accept(document.toObject(Feedback.class)));
+    }
 
-        double sum = feedbacks.stream()
-                .mapToInt(Feedback::getRating)
-                .sum();
-        return sum / feedbacks.size();
+    /**
+     * Deletes the feedback and applies {@code counters} of the deleted
+     * feedback in one transaction, so concurrent deletes of the same feedback
+     * only count it out once. Returns the deleted feedback, or empty if it did
+     * not exist.
+     */
+    public Optional<Feedback> delete(String feedbackId, Function<Feedback, CounterDeltas> counters)
+            throws ExecutionException, InterruptedException {
+        return deleteAsync(feedbackId, counters).get();
     }
 
-    public void delete(String feedbackId) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
-                .document(feedbackId)
-                .delete()
-                .get();
+    public CompletableFuture<Optional<Feedback>> deleteAsync(String feedbackId,
+            Function<Feedback, CounterDeltas> counters) {
+        DocumentReference document = firestore.collection(COLLECTION_NAME).document(feedbackId);
+        return FirestoreFutures.toCompletable(firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(document).get();
+            if (!snapshot.exists()) {
+                return Optional.<Feedback>empty();
+            }
+            Feedback feedback = snapshot.toObject(Feedback.class);
+            transaction.delete(document);
+            CounterDocuments.increment(firestore, transaction, counters.apply(feedback));
+            return Optional.of(feedback);
+        }));
+    }
+
+    private static List<Feedback> toFeedback(QuerySnapshot querySnapshot) {
+        return querySnapshot.getDocuments()
+                .stream()
+                .map(doc -> doc.toObject(Feedback.class))
+                .collect(Collectors.toList());
     }
 }
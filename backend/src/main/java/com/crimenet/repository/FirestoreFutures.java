@@ -0,0 +1,73 @@
+package com.crimenet.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.AggregateQuerySnapshot;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.Query;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapts Firestore {@link ApiFuture}s to {@link CompletableFuture}s so services
+ * can compose independent reads and writes instead of blocking on each one.
+ * Completing a returned future before Firestore does, by cancelling it or
+ * with {@link CompletableFuture#orTimeout}, cancels the underlying call.
+ */
+public final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        future.whenComplete((result, error) -> {
+            if (error != null && !apiFuture.isDone()) {
+                apiFuture.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /** Whether {@code error} or one of its causes is a Firestore error with status {@code code}. */
+    static boolean hasStatus(Throwable error, StatusCode.Code code) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ApiException apiException && apiException.getStatusCode().getCode() == code) {
+                return true;
+            }
+            if (t instanceof FirestoreException firestoreException && firestoreException.getStatus() != null
+                    && firestoreException.getStatus().getCode().name().equals(code.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Runs a server-side count aggregation, so no documents are transferred. */
+    public static CompletableFuture<Long> count(Query query) {
+        CompletableFuture<AggregateQuerySnapshot> aggregation = toCompletable(query.count().get());
+        CompletableFuture<Long> count = aggregation.thenApply(AggregateQuerySnapshot::getCount);
+        // thenApply does not pass a timeout or cancellation back to the aggregation
+        count.whenComplete((result, error) -> {
+            if (error != null) {
+                aggregation.cancel(true);
+            }
+        });
+        return count;
+    }
+}
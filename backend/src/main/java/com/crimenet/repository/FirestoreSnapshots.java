@@ -0,0 +1,44 @@
+package com.crimenet.repository;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.TransactionOptions;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Opens {@link FirestoreSnapshot}s: read-only transactions at a fixed read
+ * time. Firestore keeps old document versions for an hour, so everything a
+ * rebuild reads through one snapshot has to be read within that.
+ */
+@Repository
+public class FirestoreSnapshots {
+
+    // Read slightly in the past so client clock skew cannot put the read time ahead of the server
+    private static final long READ_TIME_LAG_MILLIS = 1000;
+
+    private final Firestore firestore;
+
+    public FirestoreSnapshots(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(FirestoreSnapshot snapshot) throws Exception;
+    }
+
+    /**
+     * Runs {@code reader} against a snapshot taken now. The transaction may be
+     * retried, so {@code reader} must build its result from scratch each time.
+     */
+    public <T> T read(Reader<T> reader) throws ExecutionException, InterruptedException {
+        Timestamp readTime = Timestamp.ofTimeMicroseconds((System.currentTimeMillis() - READ_TIME_LAG_MILLIS) * 1000);
+        TransactionOptions options = TransactionOptions.createReadOnlyOptionsBuilder()
+                .setReadTime(readTime.toProto())
+                .build();
+        return firestore.runTransaction(transaction -> reader.read(new FirestoreSnapshot(transaction, readTime)),
+                options).get();
+    }
+}
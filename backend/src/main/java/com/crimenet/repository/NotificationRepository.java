@@ -2,10 +2,10 @@ package com.crimenet.repository;
 
 import com.crimenet.model.Notification;
 import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QuerySnapshot;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -20,33 +20,43 @@ public class NotificationRepository {
     }
 
     public void save(String userId, Notification notification) throws ExecutionException, InterruptedException {
-        firestore.collection(USERS_COLLECTION)
+        saveAsync(userId, notification).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(String userId, Notification notification) {
+        return FirestoreFutures.toCompletable(firestore.collection(USERS_COLLECTION)
                 .document(userId)
                 .collection("notifications")
                 .document(notification.getNotificationId())
-                .set(notification)
-                .get();
+                .set(notification))
+                .thenApply(result -> null);
     }
 
     public List<Notification> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(USERS_COLLECTION)
+        return findByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<List<Notification>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(USERS_COLLECTION)
                 .document(userId)
                 .collection("notifications")
                 .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.DESCENDING)
-                .get()
-                .get();
-
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(Notification.class))
-                .collect(Collectors.toList());
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(Notification.class))
+                        .collect(Collectors.toList()));
     }
 
     public void markAsRead(String userId, String notificationId) throws ExecutionException, InterruptedException {
-        firestore.collection(USERS_COLLECTION)
+        markAsReadAsync(userId, notificationId).get();
+    }
+
+    public CompletableFuture<Void> markAsReadAsync(String userId, String notificationId) {
+        return FirestoreFutures.toCompletable(firestore.collection(USERS_COLLECTION)
                 .document(userId)
                 .collection("notifications")
                 .document(notificationId)
-                .update("isRead", true)
-                .get();
+                .update("isRead", true))
+                .thenApply(result -> null);
     }
 }
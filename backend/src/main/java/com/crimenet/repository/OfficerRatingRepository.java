@@ -0,0 +1,101 @@
+package com.crimenet.repository;
+
+import com.crimenet.model.Feedback;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Per-officer rating aggregates in {@code analytics_officer_ratings/{officerId}}:
+ * {@code count}, {@code sum} and {@code byRating.{1-5}}. They are incremented
+ * in the same write as the feedback they count, so an officer's average is one
+ * document read rather than a scan of their feedback.
+ */
+@Repository
+public class OfficerRatingRepository {
+
+    public static final String COUNT = "count";
+    public static final String SUM = "sum";
+    public static final String BY_RATING = "byRating";
+
+    private static final String COLLECTION_NAME = "analytics_officer_ratings";
+
+    private final Firestore firestore;
+
+    public OfficerRatingRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Counter changes counting {@code feedback} into (delta 1) or out of (delta
+     * -1) its officer's aggregate, or {@code null} if it has no officer or rating.
+     */
+    public CounterDeltas deltasFor(Feedback feedback, long delta) {
+        if (feedback.getOfficerId() == null || feedback.getRating() == null) {
+            return null;
+        }
+        return new CounterDeltas(COLLECTION_NAME, feedback.getOfficerId())
+                .add(COUNT, delta)
+                .add(SUM, delta * feedback.getRating())
+                .add(BY_RATING, String.valueOf(feedback.getRating()), delta);
+    }
+
+    /** The flattened counters of {@code officerId}, empty if they have no ratings. */
+    public Map<String, Long> findById(String officerId) throws ExecutionException, InterruptedException {
+        return findByIdAsync(officerId).get();
+    }
+
+    public CompletableFuture<Map<String, Long>> findByIdAsync(String officerId) {
+        return FirestoreFutures.toCompletable(collection().document(officerId).get())
+                .thenApply(OfficerRatingRepository::toCounters);
+    }
+
+    /** The flattened counters of every rated officer, by officer id. */
+    public Map<String, Map<String, Long>> findAll() throws ExecutionException, InterruptedException {
+        return findAllAsync().get();
+    }
+
+    public CompletableFuture<Map<String, Map<String, Long>>> findAllAsync() {
+        return FirestoreFutures.toCompletable(collection().get())
+                .thenApply(querySnapshot -> {
+                    Map<String, Map<String, Long>> officers = new HashMap<>();
+                    querySnapshot.getDocuments().forEach(doc -> officers.put(doc.getId(), toCounters(doc)));
+                    return officers;
+                });
+    }
+
+    public boolean isEmpty() throws ExecutionException, InterruptedException {
+        return collection().limit(1).get().get().isEmpty();
+    }
+
+    /** Every stored aggregate as of the snapshot's read time, to be passed back to {@link #rebuild}. */
+    public CollectionSnapshot read(FirestoreSnapshot snapshot) throws ExecutionException, InterruptedException {
+        return snapshot.collection(collection());
+    }
+
+    /**
+     * Brings every officer's aggregate to {@code officers}, counted from
+     * feedback read through the same snapshot as {@code stored}. Feedback
+     * created or deleted after the read time keeps its increments.
+     */
+    public void rebuild(CollectionSnapshot stored, Map<String, Map<String, Long>> officers)
+            throws ExecutionException, InterruptedException {
+        CounterDocuments.applyRebuild(firestore, stored, officers);
+    }
+
+    private static Map<String, Long> toCounters(DocumentSnapshot snapshot) {
+        return snapshot.exists() && snapshot.getData() != null
+                ? CounterDocuments.flatten(snapshot.getData())
+                : Map.of();
+    }
+
+    private CollectionReference collection() {
+        return firestore.collection(COLLECTION_NAME);
+    }
+}
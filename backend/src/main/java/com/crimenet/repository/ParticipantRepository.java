@@ -2,11 +2,13 @@ package com.crimenet.repository;
 
 import com.crimenet.model.Participant;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QuerySnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -17,72 +19,78 @@ public class ParticipantRepository {
     private static final String COLLECTION_NAME = "participants";
 
     public Participant save(Participant participant) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        return saveAsync(participant).get();
+    }
+
+    public CompletableFuture<Participant> saveAsync(Participant participant) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(participant.getParticipantId())
-                .set(participant)
-                .get();
-        return participant;
+                .set(participant))
+                .thenApply(result -> participant);
     }
 
     public Optional<Participant> findById(String participantId) throws ExecutionException, InterruptedException {
-        var doc = firestore.collection(COLLECTION_NAME)
-                .document(participantId)
-                .get()
-                .get();
+        return findByIdAsync(participantId).get();
+    }
 
-        if (doc.exists()) {
-            return Optional.of(doc.toObject(Participant.class));
-        }
-        return Optional.empty();
+    public CompletableFuture<Optional<Participant>> findByIdAsync(String participantId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(participantId)
+                .get())
+                .thenApply(doc -> doc.exists() ? Optional.of(doc.toObject(Participant.class)) : Optional.empty());
     }
 
     // Find all participants in a conversation
     public List<Participant> findByConversationId(String conversationId)
             throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("conversationId", conversationId)
-                .get()
-                .get();
+        return findByConversationIdAsync(conversationId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Participant.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Participant>> findByConversationIdAsync(String conversationId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("conversationId", conversationId)
+                .get())
+                .thenApply(ParticipantRepository::toParticipants);
     }
 
     // Find all conversations a user is part of
     public List<Participant> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("userId", userId)
-                .get()
-                .get();
+        return findByUserIdAsync(userId).get();
+    }
 
-        return querySnapshot.getDocuments()
-                .stream()
-                .map(doc -> doc.toObject(Participant.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Participant>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .get())
+                .thenApply(ParticipantRepository::toParticipants);
     }
 
     // Check if a user is a participant in a conversation
     public boolean isUserInConversation(String conversationId, String userId)
             throws ExecutionException, InterruptedException {
-        var querySnapshot = firestore.collection(COLLECTION_NAME)
+        return isUserInConversationAsync(conversationId, userId).get();
+    }
+
+    public CompletableFuture<Boolean> isUserInConversationAsync(String conversationId, String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("conversationId", conversationId)
                 .whereEqualTo("userId", userId)
                 .limit(1)
-                .get()
-                .get();
-
-        return !querySnapshot.isEmpty();
+                .get())
+                .thenApply(querySnapshot -> !querySnapshot.isEmpty());
     }
 
     // Update unread count for a participant
     public void updateUnreadCount(String participantId, Integer unreadCount)
             throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        updateUnreadCountAsync(participantId, unreadCount).get();
+    }
+
+    public CompletableFuture<Void> updateUnreadCountAsync(String participantId, Integer unreadCount) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(participantId)
-                .update("unreadCount", unreadCount)
-                .get();
+                .update("unreadCount", unreadCount))
+                .thenApply(result -> null);
     }
 
     // Reset unread count when user reads messages
@@ -101,20 +109,26 @@ public class ParticipantRepository {
     public void incrementUnreadCountExcept(String conversationId, String exceptUserId)
             throws ExecutionException, InterruptedException {
         List<Participant> participants = findByConversationId(conversationId);
-        for (Participant participant : participants) {
-            if (!participant.getUserId().equals(exceptUserId)) {
-                participant
-                        .setUnreadCount((participant.getUnreadCount() != null ? participant.getUnreadCount() : 0) + 1);
-                save(participant);
-            }
-        }
+        List<CompletableFuture<Participant>> writes = participants.stream()
+                .filter(participant -> !participant.getUserId().equals(exceptUserId))
+                .map(participant -> {
+                    participant.setUnreadCount(
+                            (participant.getUnreadCount() != null ? participant.getUnreadCount() : 0) + 1);
+                    return saveAsync(participant);
+                })
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
     }
 
     public void delete(String participantId) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        deleteAsync(participantId).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String participantId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(participantId)
-                .delete()
-                .get();
+                .delete())
+                .thenApply(result -> null);
     }
 
     // Remove user from conversation
@@ -128,4 +142,11 @@ public class ParticipantRepository {
             }
         }
     }
+
+    private static List<Participant> toParticipants(QuerySnapshot querySnapshot) {
+        return querySnapshot.getDocuments()
+                .stream()
+                .map(doc -> doc.toObject(Participant.class))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,187 @@
+package com.crimenet.repository;
+
+import com.crimenet.analytics.HyperLogLog;
+import com.crimenet.analytics.ReportSketches;
+import com.crimenet.analytics.SpaceSaving;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteResult;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Per-day report sketches in {@code analytics_sketches/{yyyy-MM-dd}}:
+ * {@code reporters} (HyperLogLog registers), {@code areas.{geohash}}
+ * (per-area HyperLogLog registers) and {@code locations} (Space-Saving
+ * counters as {@code key}/{@code count}/{@code error} entries). Sketch updates
+ * are not increments, so new reports are merged in with a transaction; callers
+ * batch reports in memory first, since every merge rewrites the day's document.
+ */
+@Repository
+public class ReportSketchRepository {
+
+    private static final String COLLECTION_NAME = "analytics_sketches";
+
+    private final Firestore firestore;
+
+    public ReportSketchRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /** Merges {@code sketches} into the stored sketches of {@code day}. */
+    public void merge(LocalDate day, ReportSketches sketches) throws ExecutionException, InterruptedException {
+        mergeAsync(day, sketches).get();
+    }
+
+    public CompletableFuture<Void> mergeAsync(LocalDate day, ReportSketches sketches) {
+        DocumentReference document = collection().document(day.toString());
+        return FirestoreFutures.toCompletable(firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(document).get();
+            // Merged into a fresh copy: the transaction may run more than once
+            ReportSketches merged = snapshot.exists() ? fromDocument(snapshot) : new ReportSketches();
+            transaction.set(document, toDocument(merged.merge(sketches)));
+            return null;
+        }));
+    }
+
+    /** Returns the sketches of every day in {@code [from, to]} that has reports, in date order. */
+    public SortedMap<LocalDate, ReportSketches> findRange(LocalDate from, LocalDate to)
+            throws ExecutionException, InterruptedException {
+        return findRangeAsync(from, to).get();
+    }
+
+    public CompletableFuture<SortedMap<LocalDate, ReportSketches>> findRangeAsync(LocalDate from, LocalDate to) {
+        return FirestoreFutures.toCompletable(collection()
+                .whereGreaterThanOrEqualTo(FieldPath.documentId(), from.toString())
+                .whereLessThanOrEqualTo(FieldPath.documentId(), to.toString())
+                .get())
+                .thenApply(querySnapshot -> {
+                    SortedMap<LocalDate, ReportSketches> days = new TreeMap<>();
+                    querySnapshot.getDocuments().forEach(doc -> days.put(LocalDate.parse(doc.getId()),
+                            fromDocument(doc)));
+                    return days;
+                });
+    }
+
+    public boolean isEmpty() throws ExecutionException, InterruptedException {
+        return collection().limit(1).get().get().isEmpty();
+    }
+
+    /** Every day's stored sketches as of the snapshot's read time, to be passed back to {@link #replaceAll}. */
+    public CollectionSnapshot read(FirestoreSnapshot snapshot) throws ExecutionException, InterruptedException {
+        return snapshot.collection(collection());
+    }
+
+    /**
+     * Replaces every day's sketches with {@code days}, built from reports read
+     * through the same snapshot as {@code stored}, and deletes days that no
+     * longer have any reports. Sketches cannot be written as deltas, so each day
+     * is only replaced if it has not changed since the read time; a day that
+     * received reports meanwhile keeps its stored sketches until the next
+     * rebuild. Returns the number of days skipped that way.
+     */
+    public int replaceAll(CollectionSnapshot stored, Map<LocalDate, ReportSketches> days)
+            throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Object>> documents = new HashMap<>();
+        days.forEach((day, sketches) -> documents.put(day.toString(), toDocument(sketches)));
+        Set<String> ids = new HashSet<>(documents.keySet());
+        ids.addAll(stored.documents().keySet());
+
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        for (String id : ids) {
+            writes.add(replaceIfUnchanged(id, stored.documents().get(id), documents.get(id)));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
+        int skipped = 0;
+        for (CompletableFuture<Boolean> write : writes) {
+            skipped += write.get() ? 0 : 1;
+        }
+        return skipped;
+    }
+
+    // One write per day: a failed precondition would fail a whole batch
+    private CompletableFuture<Boolean> replaceIfUnchanged(String id, DocumentSnapshot stored,
+            Map<String, Object> document) {
+        DocumentReference reference = collection().document(id);
+        ApiFuture<WriteResult> write;
+        if (stored == null) {
+            write = reference.create(document);
+        } else if (document == null) {
+            write = reference.delete(Precondition.updatedAt(stored.getUpdateTime()));
+        } else {
+            write = reference.update(document, Precondition.updatedAt(stored.getUpdateTime()));
+        }
+        return FirestoreFutures.toCompletable(write).handle((result, error) -> {
+            if (error == null) {
+                return true;
+            }
+            if (FirestoreFutures.hasStatus(error, StatusCode.Code.FAILED_PRECONDITION)
+                    || FirestoreFutures.hasStatus(error, StatusCode.Code.ALREADY_EXISTS)) {
+                return false;
+            }
+            throw new CompletionException(error);
+        });
+    }
+
+    private static Map<String, Object> toDocument(ReportSketches sketches) {
+        Map<String, Object> areas = new HashMap<>();
+        sketches.areaReporters().forEach((area, sketch) -> areas.put(area, Blob.fromBytes(sketch.toBytes())));
+
+        Map<String, Object> document = new HashMap<>();
+        document.put("reporters", Blob.fromBytes(sketches.reporters().toBytes()));
+        document.put("areas", areas);
+        document.put("locations", sketches.locations().top(sketches.locations().capacity()));
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReportSketches fromDocument(DocumentSnapshot snapshot) {
+        Blob reporters = snapshot.getBlob("reporters");
+        Map<String, HyperLogLog> areas = new HashMap<>();
+        Object storedAreas = snapshot.get("areas");
+        if (storedAreas instanceof Map) {
+            ((Map<String, Object>) storedAreas).forEach((area, registers) -> {
+                if (registers instanceof Blob blob) {
+                    areas.put(area, HyperLogLog.fromBytes(blob.toBytes()));
+                }
+            });
+        }
+        SpaceSaving locations = new SpaceSaving(ReportSketches.LOCATION_CAPACITY);
+        Object storedLocations = snapshot.get("locations");
+        if (storedLocations instanceof List) {
+            for (Object entry : (List<Object>) storedLocations) {
+                if (entry instanceof Map<?, ?> counter && counter.get("key") instanceof String key
+                        && counter.get("count") instanceof Number count) {
+                    Number error = counter.get("error") instanceof Number number ? number : 0L;
+                    locations.add(key, count.longValue(), error.longValue());
+                }
+            }
+        }
+        return new ReportSketches(reporters != null
+                ? HyperLogLog.fromBytes(reporters.toBytes())
+                : new HyperLogLog(ReportSketches.REPORTER_PRECISION), areas, locations);
+    }
+
+    private CollectionReference collection() {
+        return firestore.collection(COLLECTION_NAME);
+    }
+}
@@ -0,0 +1,115 @@
+package com.crimenet.repository;
+
+import com.crimenet.analytics.LogHistogram;
+import com.crimenet.model.CrimeReport;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Resolution-time histograms in {@code analytics_resolution/{metric}_{dimension}}
+ * (e.g. {@code timeToResolve_category}). Each document holds
+ * {@code {value}.{bucket}} counters, where the bucket is the
+ * {@link LogHistogram} bucket of the duration in seconds, so recording a
+ * duration is a set of atomic increments and the counters of a value form a
+ * mergeable quantile sketch. The {@code all} dimension has the single value
+ * {@code all}.
+ */
+@Repository
+public class ResolutionTimeRepository {
+
+    public static final String TIME_TO_ASSIGN = "timeToAssign";
+    public static final String TIME_TO_RESOLVE = "timeToResolve";
+    public static final List<String> METRICS = List.of(TIME_TO_ASSIGN, TIME_TO_RESOLVE);
+
+    public static final String ALL = "all";
+    public static final List<String> DIMENSIONS = List.of(ALL, "category", "priority", "stationId");
+
+    private static final String COLLECTION_NAME = "analytics_resolution";
+
+    private final Firestore firestore;
+
+    public ResolutionTimeRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /** The counter (per dimension) a duration of {@code durationMillis} for {@code report} is counted in. */
+    public static String counterFor(String dimension, CrimeReport report, long durationMillis) {
+        String value = switch (dimension) {
+            case ALL -> ALL;
+            case "category" -> report.getCategory();
+            case "priority" -> report.getPriority();
+            case "stationId" -> report.getStationId();
+            default -> throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        };
+        return (value != null ? value : "UNKNOWN") + "." + LogHistogram.bucketOf(durationMillis / 1000.0);
+    }
+
+    /** Counter changes recording one {@code metric} duration for {@code report}, one per dimension. */
+    public List<CounterDeltas> deltasFor(String metric, CrimeReport report, long durationMillis) {
+        List<CounterDeltas> deltas = new ArrayList<>();
+        for (String dimension : DIMENSIONS) {
+            deltas.add(new CounterDeltas(COLLECTION_NAME, documentId(metric, dimension))
+                    .add(counterFor(dimension, report, durationMillis), 1));
+        }
+        return deltas;
+    }
+
+    /** The flattened {@code value.bucket} counters of {@code metric}, by dimension. */
+    public Map<String, Map<String, Long>> findCounters(String metric) throws ExecutionException, InterruptedException {
+        return findCountersAsync(metric).get();
+    }
+
+    public CompletableFuture<Map<String, Map<String, Long>>> findCountersAsync(String metric) {
+        DocumentReference[] documents = DIMENSIONS.stream()
+                .map(dimension -> collection().document(documentId(metric, dimension)))
+                .toArray(DocumentReference[]::new);
+        return FirestoreFutures.toCompletable(firestore.getAll(documents))
+                .thenApply(snapshots -> {
+                    Map<String, Map<String, Long>> counters = new HashMap<>();
+                    for (int i = 0; i < snapshots.size(); i++) {
+                        DocumentSnapshot snapshot = snapshots.get(i);
+                        counters.put(DIMENSIONS.get(i), snapshot.exists() && snapshot.getData() != null
+                                ? CounterDocuments.flatten(snapshot.getData())
+                                : Map.of());
+                    }
+                    return counters;
+                });
+    }
+
+    public boolean isEmpty() throws ExecutionException, InterruptedException {
+        return collection().limit(1).get().get().isEmpty();
+    }
+
+    /** Overwrites every histogram document with {@code counters} (metric -> dimension -> counters). */
+    public void replaceAll(Map<String, Map<String, Map<String, Long>>> counters)
+            throws ExecutionException, InterruptedException {
+        WriteBatch batch = firestore.batch();
+        for (String metric : METRICS) {
+            for (String dimension : DIMENSIONS) {
+                Map<String, Long> values = counters.getOrDefault(metric, Map.of()).getOrDefault(dimension, Map.of());
+                batch.set(collection().document(documentId(metric, dimension)),
+                        CounterDocuments.nest(values, value -> value));
+            }
+        }
+        FirestoreFutures.toCompletable(batch.commit()).get();
+    }
+
+    private static String documentId(String metric, String dimension) {
+        return metric + "_" + dimension;
+    }
+
+    private CollectionReference collection() {
+        return firestore.collection(COLLECTION_NAME);
+    }
+}
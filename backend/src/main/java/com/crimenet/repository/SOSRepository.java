@@ -1,10 +1,18 @@
 package com.crimenet.repository;
 
+import com.crimenet.exception.ConflictException;
 import com.crimenet.model.SOSAlert;
-import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 @Repository
@@ -18,41 +26,154 @@ public class SOSRepository {
     }
 
     public SOSAlert findById(String sosId) throws ExecutionException, InterruptedException {
-        DocumentSnapshot document = firestore.collection(COLLECTION_NAME)
+        return findByIdAsync(sosId).get();
+    }
+
+    public CompletableFuture<SOSAlert> findByIdAsync(String sosId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(sosId)
+                .get())
+                .thenApply(document -> document.exists() ? document.toObject(SOSAlert.class) : null);
+    }
+
+    public Versioned<SOSAlert> findVersionedById(String sosId) throws ExecutionException, InterruptedException {
+        return findVersionedByIdAsync(sosId).get();
+    }
+
+    public CompletableFuture<Versioned<SOSAlert>> findVersionedByIdAsync(String sosId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(sosId)
-                .get()
-                .get();
+                .get())
+                .thenApply(document -> document.exists()
+                        ? new Versioned<>(document.toObject(SOSAlert.class), document.getUpdateTime())
+                        : null);
+    }
+
+    /**
+     * Applies a field-level update to the SOS alert and the statistics counter
+     * changes in a single batch. The update only succeeds if the SOS alert has
+     * not changed since {@code expectedUpdateTime}; otherwise nothing is
+     * written and a {@link ConflictException} is thrown.
+     */
+    public void update(String sosId, Map<String, Object> changes, Timestamp expectedUpdateTime,
+            CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        try {
+            updateAsync(sosId, changes, expectedUpdateTime, counters).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConflictException conflict) {
+                throw conflict;
+            }
+            throw e;
+        }
+    }
 
-        return document.exists() ? document.toObject(SOSAlert.class) : null;
+    public CompletableFuture<Void> updateAsync(String sosId, Map<String, Object> changes,
+            Timestamp expectedUpdateTime, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.update(firestore.collection(COLLECTION_NAME).document(sosId), changes,
+                Precondition.updatedAt(expectedUpdateTime));
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return null;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (FirestoreFutures.hasStatus(cause, StatusCode.Code.FAILED_PRECONDITION)) {
+                        throw new ConflictException("SOS alert " + sosId + " was modified concurrently");
+                    }
+                    throw new CompletionException(cause);
+                });
     }
 
     public void save(SOSAlert alert) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        saveAsync(alert).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(SOSAlert alert) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(alert.getSosId())
-                .set(alert)
-                .get();
+                .set(alert))
+                .thenApply(result -> null);
+    }
+
+    /** Saves the alert and applies the statistics counter changes in the same batch. */
+    public void save(SOSAlert alert, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        saveAsync(alert, counters).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(SOSAlert alert, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_NAME).document(alert.getSosId()), alert);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> null);
+    }
+
+    public java.util.List<SOSAlert> findAll() throws ExecutionException, InterruptedException {
+        return findAllAsync().get();
+    }
+
+    public CompletableFuture<java.util.List<SOSAlert>> findAllAsync() {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(SOSAlert.class))
+                        .collect(java.util.stream.Collectors.toList()));
     }
 
     public java.util.List<SOSAlert> findByStatus(String status) throws ExecutionException, InterruptedException {
-        com.google.cloud.firestore.QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("status", status)
-                .get()
-                .get();
+        return findByStatusAsync(status).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(SOSAlert.class))
-                .collect(java.util.stream.Collectors.toList());
+    public CompletableFuture<java.util.List<SOSAlert>> findByStatusAsync(String status) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status)
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(SOSAlert.class))
+                        .collect(java.util.stream.Collectors.toList()));
     }
 
     public java.util.List<SOSAlert> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        com.google.cloud.firestore.QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<java.util.List<SOSAlert>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
                 .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.DESCENDING)
-                .get()
-                .get();
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(SOSAlert.class))
+                        .collect(java.util.stream.Collectors.toList()));
+    }
+
+    public Flux<SOSAlert> streamByStatus(String status) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status), SOSAlert.class);
+    }
+
+    public Flux<SOSAlert> streamByUserId(String userId) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.DESCENDING), SOSAlert.class);
+    }
+
+    public long countAll() throws ExecutionException, InterruptedException {
+        return countAllAsync().get();
+    }
+
+    public CompletableFuture<Long> countAllAsync() {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME));
+    }
+
+    public long countByStatus(String status) throws ExecutionException, InterruptedException {
+        return countByStatusAsync(status).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(SOSAlert.class))
-                .collect(java.util.stream.Collectors.toList());
+    public CompletableFuture<Long> countByStatusAsync(String status) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status));
     }
 }
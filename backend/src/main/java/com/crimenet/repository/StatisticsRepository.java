@@ -0,0 +1,55 @@
+package com.crimenet.repository;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Materialized platform counters kept in a single document
+ * ({@code analytics/statistics}) so the statistics endpoint is one read.
+ * Counters are nested maps, e.g. {@code reports.byStatus.PENDING}; callers use
+ * the flattened dotted names.
+ */
+@Repository
+public class StatisticsRepository {
+
+    public static final String REPORTS_TOTAL = "reports.total";
+    public static final String REPORTS_BY_STATUS = "reports.byStatus";
+    public static final String USERS_TOTAL = "users.total";
+    public static final String USERS_BY_ROLE = "users.byRole";
+    public static final String TIPS_TOTAL = "tips.total";
+    public static final String SOS_TOTAL = "sos.total";
+    public static final String SOS_BY_STATUS = "sos.byStatus";
+
+    static final String COLLECTION_NAME = "analytics";
+    static final String DOCUMENT_ID = "statistics";
+
+    private final Firestore firestore;
+
+    public StatisticsRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /** Returns the flattened counters, or {@code null} if they have never been built. */
+    public Map<String, Long> findCounters() throws ExecutionException, InterruptedException {
+        return findCountersAsync().get();
+    }
+
+    public CompletableFuture<Map<String, Long>> findCountersAsync() {
+        return FirestoreFutures.toCompletable(document(firestore).get())
+                .thenApply(document -> document.exists() ? CounterDocuments.flatten(document.getData()) : null);
+    }
+
+    /** Overwrites every counter, dropping any that are not in {@code counters}. */
+    public void replaceCounters(Map<String, Long> counters) throws ExecutionException, InterruptedException {
+        FirestoreFutures.toCompletable(document(firestore).set(CounterDocuments.nest(counters, value -> value))).get();
+    }
+
+    private static DocumentReference document(Firestore firestore) {
+        return firestore.collection(COLLECTION_NAME).document(DOCUMENT_ID);
+    }
+}
@@ -1,12 +1,13 @@
 package com.crimenet.repository;
 
 import com.crimenet.model.AnonymousTip;
-import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -21,47 +22,92 @@ public class TipRepository {
     }
 
     public AnonymousTip findById(String tipId) throws ExecutionException, InterruptedException {
-        DocumentSnapshot document = firestore.collection(COLLECTION_NAME)
-                .document(tipId)
-                .get()
-                .get();
+        return findByIdAsync(tipId).get();
+    }
 
-        return document.exists() ? document.toObject(AnonymousTip.class) : null;
+    public CompletableFuture<AnonymousTip> findByIdAsync(String tipId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(tipId)
+                .get())
+                .thenApply(document -> document.exists() ? document.toObject(AnonymousTip.class) : null);
     }
 
     public AnonymousTip findByTrackingCode(String trackingCode) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findByTrackingCodeAsync(trackingCode).get();
+    }
+
+    public CompletableFuture<AnonymousTip> findByTrackingCodeAsync(String trackingCode) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("trackingCode", trackingCode)
                 .limit(1)
-                .get()
-                .get();
-
-        return querySnapshot.isEmpty() ? null : querySnapshot.getDocuments().get(0).toObject(AnonymousTip.class);
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.isEmpty() ? null
+                        : querySnapshot.getDocuments().get(0).toObject(AnonymousTip.class));
     }
 
     public void save(AnonymousTip tip) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        saveAsync(tip).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(AnonymousTip tip) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(tip.getTipId())
-                .set(tip)
-                .get();
+                .set(tip))
+                .thenApply(result -> null);
+    }
+
+    /** Saves the tip and applies the statistics counter changes in the same batch. */
+    public void save(AnonymousTip tip, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        saveAsync(tip, counters).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(AnonymousTip tip, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_NAME).document(tip.getTipId()), tip);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> null);
     }
 
     public List<AnonymousTip> findAll() throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .get()
-                .get();
+        return findAllAsync().get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(AnonymousTip.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<AnonymousTip>> findAllAsync() {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .get())
+                .thenApply(TipRepository::toTips);
     }
 
     public List<AnonymousTip> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<List<AnonymousTip>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
-                .get()
-                .get();
+                .get())
+                .thenApply(TipRepository::toTips);
+    }
+
+    public long countAll() throws ExecutionException, InterruptedException {
+        return countAllAsync().get();
+    }
+
+    public CompletableFuture<Long> countAllAsync() {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME));
+    }
+
+    public long countByUserId(String userId) throws ExecutionException, InterruptedException {
+        return countByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<Long> countByUserIdAsync(String userId) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId));
+    }
 
+    private static List<AnonymousTip> toTips(QuerySnapshot querySnapshot) {
         return querySnapshot.getDocuments().stream()
                 .map(doc -> doc.toObject(AnonymousTip.class))
                 .collect(Collectors.toList());
@@ -1,12 +1,18 @@
 package com.crimenet.repository;
 
+import com.crimenet.exception.ConflictException;
 import com.crimenet.model.User;
-import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -21,36 +27,177 @@ public class UserRepository {
     }
 
     public User findById(String uid) throws ExecutionException, InterruptedException {
-        DocumentSnapshot document = firestore.collection(COLLECTION_NAME)
+        return findByIdAsync(uid).get();
+    }
+
+    public CompletableFuture<User> findByIdAsync(String uid) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(uid)
-                .get()
-                .get();
+                .get())
+                .thenApply(document -> document.exists() ? document.toObject(User.class) : null);
+    }
 
-        return document.exists() ? document.toObject(User.class) : null;
+    public Versioned<User> findVersionedById(String uid) throws ExecutionException, InterruptedException {
+        return findVersionedByIdAsync(uid).get();
+    }
+
+    public CompletableFuture<Versioned<User>> findVersionedByIdAsync(String uid) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(uid)
+                .get())
+                .thenApply(document -> document.exists()
+                        ? new Versioned<>(document.toObject(User.class), document.getUpdateTime())
+                        : null);
+    }
+
+    /**
+     * Applies a field-level update to the user and the statistics counter
+     * changes in a single batch. The update only succeeds if the user has
+     * not changed since {@code expectedUpdateTime}; otherwise nothing is
+     * written and a {@link ConflictException} is thrown.
+     */
+    public void update(String uid, Map<String, Object> changes, Timestamp expectedUpdateTime,
+            CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        try {
+            updateAsync(uid, changes, expectedUpdateTime, counters).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConflictException conflict) {
+                throw conflict;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> updateAsync(String uid, Map<String, Object> changes,
+            Timestamp expectedUpdateTime, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.update(firestore.collection(COLLECTION_NAME).document(uid), changes,
+                Precondition.updatedAt(expectedUpdateTime));
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return null;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (FirestoreFutures.hasStatus(cause, StatusCode.Code.FAILED_PRECONDITION)) {
+                        throw new ConflictException("User " + uid + " was modified concurrently");
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Updates only the given fields of the user. Returns false if the user does
+     * not exist.
+     */
+    public boolean update(String uid, Map<String, Object> changes) throws ExecutionException, InterruptedException {
+        return updateAsync(uid, changes).get();
+    }
+
+    public CompletableFuture<Boolean> updateAsync(String uid, Map<String, Object> changes) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(uid)
+                .update(changes))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return true;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (FirestoreFutures.hasStatus(cause, StatusCode.Code.NOT_FOUND)) {
+                        return false;
+                    }
+                    throw new CompletionException(cause);
+                });
     }
 
     public void save(User user) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        saveAsync(user).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(User user) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(user.getUid())
-                .set(user)
-                .get();
+                .set(user))
+                .thenApply(result -> null);
+    }
+
+    /** Saves the user and applies the statistics counter changes in the same batch. */
+    public void save(User user, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        saveAsync(user, counters).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(User user, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_NAME).document(user.getUid()), user);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> null);
     }
 
     public List<User> findByRole(String role) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("role", role)
-                .get()
-                .get();
+        return findByRoleAsync(role).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(User.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<User>> findByRoleAsync(String role) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("role", role)
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(User.class))
+                        .collect(Collectors.toList()));
     }
 
     public void delete(String uid) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        deleteAsync(uid).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String uid) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(uid)
-                .delete()
-                .get();
+                .delete())
+                .thenApply(result -> null);
+    }
+
+    /** Deletes the user and applies the statistics counter changes in the same batch. */
+    public void delete(String uid, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        deleteAsync(uid, counters).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String uid, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.delete(firestore.collection(COLLECTION_NAME).document(uid));
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> null);
+    }
+
+    public List<User> findAll() throws ExecutionException, InterruptedException {
+        return findAllAsync().get();
+    }
+
+    public CompletableFuture<List<User>> findAllAsync() {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(User.class))
+                        .collect(Collectors.toList()));
+    }
+
+    public long countAll() throws ExecutionException, InterruptedException {
+        return countAllAsync().get();
+    }
+
+    public CompletableFuture<Long> countAllAsync() {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME));
+    }
+
+    public long countByRole(String role) throws ExecutionException, InterruptedException {
+        return countByRoleAsync(role).get();
+    }
+
+    public CompletableFuture<Long> countByRoleAsync(String role) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("role", role));
     }
 }
@@ -3,12 +3,14 @@ package com.crimenet.security;
 import java.io.IOException;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.crimenet.service.AuthService;
-import com.google.firebase.auth.FirebaseToken;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,9 +21,16 @@ import jakarta.servlet.http.HttpServletResponse;
 public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
 
     private final AuthService authService;
+    private final FirebaseTokenCache tokenCache;
+    private final SessionTokenService sessionTokenService;
+    // Lets the async dispatch of a streamed response run as the same user without verifying the token again
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
-    public FirebaseAuthenticationFilter(AuthService authService) {
+    public FirebaseAuthenticationFilter(AuthService authService, FirebaseTokenCache tokenCache,
+            SessionTokenService sessionTokenService) {
         this.authService = authService;
+        this.tokenCache = tokenCache;
+        this.sessionTokenService = sessionTokenService;
     }
 
     @Override
@@ -35,19 +44,31 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                FirebaseToken decodedToken = authService.verifyToken(token);
+                VerifiedToken decodedToken;
+                if (sessionTokenService.isSessionToken(token)) {
+                    decodedToken = sessionTokenService.verify(token);
+                } else {
+                    decodedToken = tokenCache.get(token);
+                    if (decodedToken == null) {
+                        decodedToken = authService.verifyToken(token);
+                        tokenCache.put(token, decodedToken);
+                    }
+                }
                 String uid = decodedToken.getUid();
                 String email = decodedToken.getEmail();
-                String role = authService.getUserRole(uid);
+                String role = authService.getUserRole(decodedToken);
 
                 FirebaseUserDetails userDetails = new FirebaseUserDetails(uid, email, role);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+                securityContextRepository.saveContext(context, request, response);
             } catch (Exception e) {
                 // Invalid token; continue without authentication
-                logger.warn("Invalid Firebase token: " + e.getMessage());
+                logger.warn("Invalid bearer token: " + e.getMessage());
             }
         }
 
@@ -0,0 +1,121 @@
+package com.crimenet.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process cache of verified Firebase ID tokens.
+ *
+ * Entries are keyed by the SHA-256 of the raw token (the token itself is never
+ * kept as a key) and expire at the token's own {@code exp} claim. When the cache
+ * is full the least recently used entry is evicted.
+ */
+@Component
+public class FirebaseTokenCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedToken> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FirebaseTokenCache(@Value("${crimenet.auth.token-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+                if (size() > FirebaseTokenCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached decoded token, or null if it is unknown or has expired.
+     */
+    public VerifiedToken get(String idToken) {
+        String key = hash(idToken);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedToken cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAtMillis > now) {
+                    hits.increment();
+                    return cached.token;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String idToken, VerifiedToken token) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long expiresAtMillis = token.getExpiresAtMillis();
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        String key = hash(idToken);
+        synchronized (entries) {
+            entries.put(key, new CachedToken(token, expiresAtMillis));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", maxSize);
+        return stats;
+    }
+
+    private static String hash(String idToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(idToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class CachedToken {
+        private final VerifiedToken token;
+        private final long expiresAtMillis;
+
+        private CachedToken(VerifiedToken token, long expiresAtMillis) {
+            this.token = token;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
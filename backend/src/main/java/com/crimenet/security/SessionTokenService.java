@@ -0,0 +1,133 @@
+package com.crimenet.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mints and checks short-lived session tokens that are handed out in exchange
+ * for a verified Firebase ID token. A session token is
+ * {@code cns1.<base64url payload>.<base64url HMAC-SHA256>} and carries uid,
+ * email, role and expiry, so checking it needs no key download or role lookup.
+ *
+ * A session token never outlives the ID token it was exchanged for. The role
+ * it carries is not re-checked: a role changed through
+ * {@link com.crimenet.service.AuthService#setUserRole} takes effect at once on
+ * the instance that made the change, whose role cache wins over the claim, but
+ * other instances keep honouring the old role until the token expires, at
+ * most {@code crimenet.auth.session.ttl-seconds} (15 minutes by default). That
+ * is no longer than the old role claim on the ID token itself stays valid.
+ */
+@Component
+public class SessionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private static final String PREFIX = "cns1.";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public SessionTokenService(@Value("${crimenet.auth.session.secret:}") String secret,
+            @Value("${crimenet.auth.session.ttl-seconds:900}") long ttlSeconds) {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            // Fine for a single instance; tokens are simply re-exchanged after a restart
+            logger.warn("No session token secret configured; generating a per-process key");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public boolean isSessionToken(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    /** Seconds until a session token issued now for {@code idToken} expires. */
+    public long expiresInSeconds(VerifiedToken idToken) {
+        return expiresAtSeconds(idToken) - System.currentTimeMillis() / 1000L;
+    }
+
+    public String issue(VerifiedToken idToken, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", idToken.getUid());
+        claims.put("email", idToken.getEmail());
+        claims.put("role", role);
+        claims.put("exp", expiresAtSeconds(idToken));
+
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(claims));
+            return PREFIX + payload + "." + sign(payload);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to issue session token", e);
+        }
+    }
+
+    public VerifiedToken verify(String token) {
+        int separator = token.lastIndexOf('.');
+        if (!isSessionToken(token) || separator <= PREFIX.length()) {
+            throw new BadCredentialsException("Malformed session token");
+        }
+        String payload = token.substring(PREFIX.length(), separator);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new BadCredentialsException("Invalid session token signature");
+        }
+
+        Map<String, Object> claims;
+        try {
+            claims = objectMapper.readValue(Base64.getUrlDecoder().decode(payload),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+        } catch (Exception e) {
+            throw new BadCredentialsException("Malformed session token");
+        }
+        long expiresAtMillis = ((Number) claims.get("exp")).longValue() * 1000L;
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            throw new BadCredentialsException("Session token has expired");
+        }
+        return new VerifiedToken((String) claims.get("uid"), (String) claims.get("email"), claims, expiresAtMillis);
+    }
+
+    // The configured lifetime, cut short at the ID token's own expiry
+    private long expiresAtSeconds(VerifiedToken idToken) {
+        long expiresAt = System.currentTimeMillis() / 1000L + ttlSeconds;
+        if (idToken.getExpiresAtMillis() > 0) {
+            expiresAt = Math.min(expiresAt, idToken.getExpiresAtMillis() / 1000L);
+        }
+        return expiresAt;
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign session token", e);
+        }
+    }
+}
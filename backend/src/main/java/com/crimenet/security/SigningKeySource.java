@@ -0,0 +1,14 @@
+package com.crimenet.security;
+
+import java.io.IOException;
+
+/**
+ * Supplies the public keys used to check Firebase ID token signatures.
+ *
+ * The default implementation downloads Google's published certificates;
+ * register another bean of this type to verify against local keys instead.
+ */
+public interface SigningKeySource {
+
+    SigningKeySet fetchKeys() throws IOException;
+}
@@ -0,0 +1,46 @@
+package com.crimenet.security;
+
+import com.google.firebase.auth.FirebaseToken;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A verified Firebase ID token, independent of which verifier produced it.
+ */
+public class VerifiedToken {
+
+    private final String uid;
+    private final String email;
+    private final Map<String, Object> claims;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String uid, String email, Map<String, Object> claims, long expiresAtMillis) {
+        this.uid = uid;
+        this.email = email;
+        this.claims = Collections.unmodifiableMap(claims);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public static VerifiedToken from(FirebaseToken token) {
+        Object exp = token.getClaims().get("exp");
+        long expiresAtMillis = exp instanceof Number ? ((Number) exp).longValue() * 1000L : 0L;
+        return new VerifiedToken(token.getUid(), token.getEmail(), token.getClaims(), expiresAtMillis);
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+}
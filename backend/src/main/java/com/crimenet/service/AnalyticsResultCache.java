@@ -0,0 +1,136 @@
+package com.crimenet.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stale-while-revalidate cache for analytics results, keyed by method and
+ * arguments (e.g. {@code "crimeStats:30"}).
+ *
+ * A fresh entry (younger than the TTL) is returned as is. An expired entry is
+ * still returned, and a single background refresh replaces it; entries past
+ * TTL + max-stale are recomputed on the caller's thread instead. Concurrent
+ * misses for the same key wait on the first caller's computation rather than
+ * running their own. A TTL of 0 disables caching.
+ */
+@Component
+public class AnalyticsResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsResultCache.class);
+
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final int maxSize;
+    private final Executor refreshExecutor;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public AnalyticsResultCache(@Value("${crimenet.analytics.cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${crimenet.analytics.cache.max-stale-seconds:600}") long maxStaleSeconds,
+            @Value("${crimenet.analytics.cache.max-size:256}") int maxSize,
+            @Qualifier("applicationTaskExecutor") Executor refreshExecutor) {
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxStaleMillis = maxStaleSeconds * 1000L;
+        this.maxSize = maxSize;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws ExecutionException, InterruptedException;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Loader<T> loader) throws ExecutionException, InterruptedException {
+        if (ttlMillis <= 0) {
+            return loader.load();
+        }
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry entry = entries.get(key);
+            if (entry == null || now - entry.loadedAt > ttlMillis + maxStaleMillis) {
+                if (entry == null && entries.size() >= maxSize) {
+                    // Full (e.g. many distinct "days" values): compute without caching
+                    return loader.load();
+                }
+                Entry loading = new Entry(new CompletableFuture<>(), now);
+                boolean owner = entry == null
+                        ? entries.putIfAbsent(key, loading) == null
+                        : entries.replace(key, entry, loading);
+                if (!owner) {
+                    continue;
+                }
+                return (T) load(key, loading, loader);
+            }
+
+            // Either a completed value or another caller's in-flight load
+            Object value = entry.value.get();
+            if (now - entry.loadedAt > ttlMillis) {
+                refreshInBackground(key, entry, loader);
+            }
+            return (T) value;
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private Object load(String key, Entry loading, Loader<?> loader)
+            throws ExecutionException, InterruptedException {
+        try {
+            Object value = loader.load();
+            loading.value.complete(value);
+            return value;
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            // Failures are not cached: waiters see this one, the next call retries
+            entries.remove(key, loading);
+            loading.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void refreshInBackground(String key, Entry stale, Loader<?> loader) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                long startedAt = System.currentTimeMillis();
+                try {
+                    Object value = loader.load();
+                    entries.replace(key, stale, new Entry(CompletableFuture.completedFuture(value), startedAt));
+                } catch (InterruptedException e) {
+                    stale.refreshing.set(false);
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    // Keep serving the stale value; the next request past the TTL tries again
+                    stale.refreshing.set(false);
+                    logger.warn("Failed to refresh analytics result {}: {}", key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Object> value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CompletableFuture<Object> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
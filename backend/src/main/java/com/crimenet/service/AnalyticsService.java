@@ -1,53 +1,183 @@
 package com.crimenet.service;
 
+import com.crimenet.analytics.LogHistogram;
+import com.crimenet.analytics.ReportSketches;
+import com.crimenet.model.CrimeReport;
+import com.crimenet.model.ReportTimeline;
+import com.crimenet.repository.CollectionSnapshot;
+import com.crimenet.repository.CounterDeltas;
+import com.crimenet.repository.DailyRollupRepository;
+import com.crimenet.repository.FirestoreSnapshots;
 import com.crimenet.repository.ReportRepository;
+import com.crimenet.repository.ReportSketchRepository;
+import com.crimenet.repository.ResolutionTimeRepository;
 import com.crimenet.repository.UserRepository;
 import com.crimenet.repository.TipRepository;
 import com.crimenet.repository.SOSRepository;
+import com.crimenet.repository.StatisticsRepository;
+import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Service
 public class AnalyticsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+
+    // Buckets rebuilt by rebuildStatistics; writes can still add others incrementally
+    private static final List<String> REPORT_STATUSES = List.of("PENDING", "UNDER_INVESTIGATION", "IN_PROGRESS",
+            "INVESTIGATING", "RESOLVED", "CLOSED");
+    private static final List<String> USER_ROLES = List.of("CITIZEN", "POLICE", "ADMIN");
+    private static final List<String> SOS_STATUSES = List.of("ACTIVE", "CANCELLED", "RESPONDED", "RESOLVED");
+
+    // Status groups reported by the crime breakdowns
+    private static final List<String> PENDING = List.of("PENDING");
+    private static final List<String> IN_PROGRESS = List.of("IN_PROGRESS", "INVESTIGATING");
+    private static final List<String> RESOLVED = ReportService.RESOLVED_STATUSES;
+
+    private static final int TOP_AREAS = 20;
+
+    private static final int TREND_DAYS = 30;
+    private static final int TREND_WEEKS = 12;
+    private static final int TREND_MONTHS = 12;
+    private static final DateTimeFormatter TREND_LABEL = DateTimeFormatter.ofPattern("MMM dd");
+
     private final ReportRepository reportRepository;
     private final UserRepository userRepository;
     private final TipRepository tipRepository;
     private final SOSRepository sosRepository;
+    private final StatisticsRepository statisticsRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ResolutionTimeRepository resolutionTimeRepository;
+    private final ReportSketchRepository reportSketchRepository;
+    private final FirestoreSnapshots firestoreSnapshots;
+    private final ReportSketchRecorder reportSketchRecorder;
+    private final AnalyticsResultCache resultCache;
+    private final long queryTimeoutMillis;
 
     public AnalyticsService(ReportRepository reportRepository, UserRepository userRepository,
-            TipRepository tipRepository, SOSRepository sosRepository) {
+            TipRepository tipRepository, SOSRepository sosRepository, StatisticsRepository statisticsRepository,
+            DailyRollupRepository dailyRollupRepository, ResolutionTimeRepository resolutionTimeRepository,
+            ReportSketchRepository reportSketchRepository, FirestoreSnapshots firestoreSnapshots,
+            ReportSketchRecorder reportSketchRecorder, AnalyticsResultCache resultCache,
+            @Value("${crimenet.analytics.query-timeout-ms:5000}") long queryTimeoutMillis) {
         this.reportRepository = reportRepository;
         this.userRepository = userRepository;
         this.tipRepository = tipRepository;
         this.sosRepository = sosRepository;
+        this.statisticsRepository = statisticsRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.resolutionTimeRepository = resolutionTimeRepository;
+        this.reportSketchRepository = reportSketchRepository;
+        this.firestoreSnapshots = firestoreSnapshots;
+        this.reportSketchRecorder = reportSketchRecorder;
+        this.resultCache = resultCache;
+        this.queryTimeoutMillis = queryTimeoutMillis;
     }
 
     public Map<String, Object> getStatistics() throws ExecutionException, InterruptedException {
+        return resultCache.get("statistics", this::loadStatistics);
+    }
+
+    private Map<String, Object> loadStatistics() throws ExecutionException, InterruptedException {
+        Map<String, Long> counters = statisticsRepository.findCounters();
+        if (counters == null) {
+            // First call on a fresh project: build the counters once, writes keep them current after that
+            counters = rebuildStatistics();
+        }
+
         Map<String, Object> stats = new HashMap<>();
 
         // Get counts by status
-        stats.put("pendingReports", reportRepository.findByStatus("PENDING").size());
-        stats.put("underInvestigationReports", reportRepository.findByStatus("UNDER_INVESTIGATION").size());
-        stats.put("closedReports", reportRepository.findByStatus("CLOSED").size());
+        stats.put("pendingReports", counter(counters, StatisticsRepository.REPORTS_BY_STATUS, "PENDING"));
+        stats.put("underInvestigationReports",
+                counter(counters, StatisticsRepository.REPORTS_BY_STATUS, "UNDER_INVESTIGATION"));
+        stats.put("closedReports", counter(counters, StatisticsRepository.REPORTS_BY_STATUS, "CLOSED"));
 
         // Get user counts by role
-        stats.put("citizenCount", userRepository.findByRole("CITIZEN").size());
-        stats.put("policeCount", userRepository.findByRole("POLICE").size());
-        stats.put("adminCount", userRepository.findByRole("ADMIN").size());
+        long citizenCount = counter(counters, StatisticsRepository.USERS_BY_ROLE, "CITIZEN");
+        long policeCount = counter(counters, StatisticsRepository.USERS_BY_ROLE, "POLICE");
+        long adminCount = counter(counters, StatisticsRepository.USERS_BY_ROLE, "ADMIN");
+
+        stats.put("citizenCount", citizenCount);
+        stats.put("policeCount", policeCount);
+        stats.put("adminCount", adminCount);
+        stats.put("totalUsers", citizenCount + policeCount + adminCount);
+        stats.put("totalReports", counters.getOrDefault(StatisticsRepository.REPORTS_TOTAL, 0L));
+        stats.put("resolvedReports", counter(counters, StatisticsRepository.REPORTS_BY_STATUS, "RESOLVED"));
 
         // Get tips count
-        stats.put("totalTips", tipRepository.findAll().size());
+        stats.put("totalTips", counters.getOrDefault(StatisticsRepository.TIPS_TOTAL, 0L));
 
         // Additional statistics
-        stats.put("activeSOSAlerts", sosRepository.findByStatus("ACTIVE").size());
+        stats.put("activeSOSAlerts", counter(counters, StatisticsRepository.SOS_BY_STATUS, "ACTIVE"));
 
         return stats;
     }
 
+    /**
+     * Recomputes the statistics counters from the source collections and
+     * overwrites the counters document. Each counter is one server-side count
+     * aggregation, so no documents are downloaded; status and role buckets
+     * are rebuilt for the values the application uses. Writes that land while
+     * the counts are running may be missed until the next rebuild.
+     */
+    public Map<String, Long> rebuildStatistics() throws ExecutionException, InterruptedException {
+        QueryFanOut counts = new QueryFanOut(queryTimeoutMillis)
+                .fork(StatisticsRepository.REPORTS_TOTAL, reportRepository.countAllAsync());
+        for (String status : REPORT_STATUSES) {
+            counts.fork(StatisticsRepository.REPORTS_BY_STATUS + "." + status,
+                    reportRepository.countByStatusAsync(status));
+        }
+        counts.fork(StatisticsRepository.USERS_TOTAL, userRepository.countAllAsync());
+        for (String role : USER_ROLES) {
+            counts.fork(StatisticsRepository.USERS_BY_ROLE + "." + role, userRepository.countByRoleAsync(role));
+        }
+        counts.fork(StatisticsRepository.TIPS_TOTAL, tipRepository.countAllAsync());
+        counts.fork(StatisticsRepository.SOS_TOTAL, sosRepository.countAllAsync());
+        for (String status : SOS_STATUSES) {
+            counts.fork(StatisticsRepository.SOS_BY_STATUS + "." + status, sosRepository.countByStatusAsync(status));
+        }
+
+        QueryFanOut.Result result = counts.join();
+        if (!result.isComplete()) {
+            // Never overwrite the counters with a partial rebuild
+            throw new IllegalStateException("Timed out rebuilding statistics counters: " + result.timedOut());
+        }
+
+        CounterDeltas counters = new CounterDeltas();
+        result.values().forEach((counter, count) -> counters.add(counter, (Long) count));
+
+        statisticsRepository.replaceCounters(counters.asMap());
+        resultCache.invalidateAll();
+        return counters.asMap();
+    }
+
+    private static long counter(Map<String, Long> counters, String group, String bucket) {
+        return counters.getOrDefault(group + "." + bucket, 0L);
+    }
+
     public Map<String, Integer> getReportsByCategory() throws ExecutionException, InterruptedException {
         Map<String, Integer> categoryStats = new HashMap<>();
 
@@ -63,139 +193,394 @@ public class AnalyticsService {
         return categoryStats;
     }
 
-    public Map<String, Object> getReportTrends() {
-        Map<String, Object> trends = new HashMap<>();
+    public Map<String, Object> getReportTrends() throws ExecutionException, InterruptedException {
+        return resultCache.get("trends", this::loadReportTrends);
+    }
 
-        // Placeholder for trend analysis
-        // In production, implement time-series analysis of reports
-        trends.put("daily", new HashMap<>());
-        trends.put("weekly", new HashMap<>());
-        trends.put("monthly", new HashMap<>());
+    private Map<String, Object> loadReportTrends() throws ExecutionException, InterruptedException {
+        LocalDate today = dailyRollupRepository.today();
+        LocalDate firstMonth = today.minusMonths(TREND_MONTHS - 1).withDayOfMonth(1);
+        LocalDate firstWeek = today.minusWeeks(TREND_WEEKS - 1).with(DayOfWeek.MONDAY);
+        LocalDate firstDay = today.minusDays(TREND_DAYS - 1);
+        LocalDate from = firstWeek.isBefore(firstMonth) ? firstWeek : firstMonth;
+        SortedMap<LocalDate, Map<String, Long>> rollups = dailyRollupRepository.findRange(from, today);
+
+        // Zero-filled, chronologically ordered series keyed by ISO date, ISO week and month
+        Map<String, Long> daily = new LinkedHashMap<>();
+        Map<String, Long> weekly = new LinkedHashMap<>();
+        Map<String, Long> monthly = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(today); day = day.plusDays(1)) {
+            long total = rollups.getOrDefault(day, Map.of()).getOrDefault(DailyRollupRepository.TOTAL, 0L);
+            if (!day.isBefore(firstDay)) {
+                daily.merge(day.toString(), total, Long::sum);
+            }
+            if (!day.isBefore(firstWeek)) {
+                weekly.merge(String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR),
+                        day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)), total, Long::sum);
+            }
+            if (!day.isBefore(firstMonth)) {
+                monthly.merge(YearMonth.from(day).toString(), total, Long::sum);
+            }
+        }
 
+        Map<String, Object> trends = new HashMap<>();
+        trends.put("daily", daily);
+        trends.put("weekly", weekly);
+        trends.put("monthly", monthly);
         return trends;
     }
 
     public Map<String, Object> getCrimeStats(int days) throws ExecutionException, InterruptedException {
+        ReportBreakdown breakdown = breakdownSince(days);
+
         Map<String, Object> stats = new HashMap<>();
+        stats.put("totalReports", breakdown.total());
+        stats.put("pendingReports", breakdown.count(PENDING));
+        stats.put("inProgressReports", breakdown.count(IN_PROGRESS));
+        stats.put("resolvedReports", breakdown.count(RESOLVED));
+        return stats;
+    }
+
+    public List<Map<String, Object>> getCrimesByCategory(int days)
+            throws ExecutionException, InterruptedException {
+        return crimesByCategory(breakdownSince(days));
+    }
+
+    public List<Map<String, Object>> getCrimesByStatus(int days)
+            throws ExecutionException, InterruptedException {
+        return crimesByStatus(breakdownSince(days));
+    }
 
-        java.util.List<com.crimenet.model.CrimeReport> allReports = reportRepository.findAll();
+    // One pass over the window fills the category x status matrix every breakdown is read from;
+    // the three breakdown endpoints share the cached matrix for the same window
+    private ReportBreakdown breakdownSince(int days) throws ExecutionException, InterruptedException {
+        return resultCache.get("breakdown:" + days, () -> loadBreakdownSince(days));
+    }
 
-        // Filter reports within the time range
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.List<com.crimenet.model.CrimeReport> filteredReports = allReports.stream()
-                .filter(r -> r.getCreatedAt() != null && r.getCreatedAt().toDate().getTime() >= cutoffTime)
-                .collect(java.util.stream.Collectors.toList());
+    private ReportBreakdown loadBreakdownSince(int days) throws ExecutionException, InterruptedException {
+        ReportBreakdown breakdown = new ReportBreakdown(REPORT_STATUSES);
+        for (CrimeReport report : reportRepository.findCreatedSince(cutoff(days))) {
+            breakdown.add(report);
+        }
+        return breakdown;
+    }
 
-        stats.put("totalReports", filteredReports.size());
-        stats.put("pendingReports", filteredReports.stream().filter(r -> "PENDING".equals(r.getStatus())).count());
-        stats.put("inProgressReports", filteredReports.stream()
-                .filter(r -> "IN_PROGRESS".equals(r.getStatus()) || "INVESTIGATING".equals(r.getStatus())).count());
-        stats.put("resolvedReports", filteredReports.stream()
-                .filter(r -> "RESOLVED".equals(r.getStatus()) || "CLOSED".equals(r.getStatus())).count());
+    // Start of the analytics window; only reports created since then are read from Firestore
+    private static Timestamp cutoff(int days) {
+        return Timestamp.ofTimeMicroseconds((System.currentTimeMillis() - days * 24L * 60L * 60L * 1000L) * 1000L);
+    }
 
-        return stats;
+    private static List<Map<String, Object>> crimesByCategory(ReportBreakdown breakdown) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        breakdown.byCategory().forEach((category, count) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("category", category);
+            item.put("count", count);
+            item.put("pending", breakdown.count(category, PENDING));
+            item.put("inProgress", breakdown.count(category, IN_PROGRESS));
+            item.put("resolved", breakdown.count(category, RESOLVED));
+            items.add(item);
+        });
+        return items;
     }
 
-    public java.util.List<Map<String, Object>> getCrimesByCategory(int days)
-            throws ExecutionException, InterruptedException {
-        java.util.List<com.crimenet.model.CrimeReport> allReports = reportRepository.findAll();
-
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.Map<String, Long> categoryCounts = allReports.stream()
-                .filter(r -> r.getCreatedAt() != null && r.getCreatedAt().toDate().getTime() >= cutoffTime)
-                .collect(java.util.stream.Collectors.groupingBy(
-                        r -> r.getCategory() != null ? r.getCategory() : "UNKNOWN",
-                        java.util.stream.Collectors.counting()));
-
-        return categoryCounts.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("category", entry.getKey());
-                    item.put("count", entry.getValue());
-
-                    // Calculate status breakdown
-                    java.util.List<com.crimenet.model.CrimeReport> categoryReports = allReports.stream()
-                            .filter(r -> entry.getKey().equals(r.getCategory()))
-                            .filter(r -> r.getCreatedAt() != null && r.getCreatedAt().toDate().getTime() >= cutoffTime)
-                            .collect(java.util.stream.Collectors.toList());
-
-                    item.put("pending", categoryReports.stream().filter(r -> "PENDING".equals(r.getStatus())).count());
-                    item.put("inProgress",
-                            categoryReports.stream().filter(
-                                    r -> "IN_PROGRESS".equals(r.getStatus()) || "INVESTIGATING".equals(r.getStatus()))
-                                    .count());
-                    item.put("resolved", categoryReports.stream()
-                            .filter(r -> "RESOLVED".equals(r.getStatus()) || "CLOSED".equals(r.getStatus())).count());
-
-                    return item;
-                })
-                .collect(java.util.stream.Collectors.toList());
-    }
-
-    public java.util.List<Map<String, Object>> getCrimesByStatus(int days)
+    private static List<Map<String, Object>> crimesByStatus(ReportBreakdown breakdown) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        breakdown.byStatus().forEach((status, count) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", status);
+            item.put("value", count);
+            items.add(item);
+        });
+        return items;
+    }
+
+    public List<Map<String, Object>> getCrimeTrends(int days)
             throws ExecutionException, InterruptedException {
-        java.util.List<com.crimenet.model.CrimeReport> allReports = reportRepository.findAll();
-
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.Map<String, Long> statusCounts = allReports.stream()
-                .filter(r -> r.getCreatedAt() != null && r.getCreatedAt().toDate().getTime() >= cutoffTime)
-                .collect(java.util.stream.Collectors.groupingBy(
-                        r -> r.getStatus() != null ? r.getStatus() : "UNKNOWN",
-                        java.util.stream.Collectors.counting()));
-
-        return statusCounts.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("name", entry.getKey());
-                    item.put("value", entry.getValue());
-                    return item;
-                })
-                .collect(java.util.stream.Collectors.toList());
-    }
-
-    public java.util.List<Map<String, Object>> getCrimeTrends(int days)
+        return resultCache.get("crimeTrends:" + days, () -> getCrimeTrendsAsync(days).get());
+    }
+
+    /**
+     * Report counts per day for the last {@code days} days (including today),
+     * read from the daily rollups in date order with empty days as zero.
+     */
+    public CompletableFuture<List<Map<String, Object>>> getCrimeTrendsAsync(int days) {
+        LocalDate to = dailyRollupRepository.today();
+        LocalDate from = to.minusDays(Math.max(days, 1) - 1L);
+        return dailyRollupRepository.findRangeAsync(from, to).thenApply(rollups -> {
+            List<Map<String, Object>> trends = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("date", day.format(TREND_LABEL));
+                item.put("day", day.toString());
+                item.put("count", rollups.getOrDefault(day, Map.of()).getOrDefault(DailyRollupRepository.TOTAL, 0L));
+                trends.add(item);
+            }
+            return trends;
+        });
+    }
+
+    /**
+     * Rebuilds every daily rollup and every day's report sketches from the
+     * reports collection. Reports are read a page at a time and folded per day,
+     * so only the per-day counters and sketches are held in memory.
+     *
+     * The reports and the stored rollups are read at the same read time and
+     * only the difference is written, as increments: reports created or
+     * updated while the rebuild runs keep their counts. Sketches are replaced
+     * day by day where they have not changed since the read time; this
+     * instance's sketch merges are paused until they are written.
+     */
+    public int rebuildDailyRollups() throws ExecutionException, InterruptedException {
+        return reportSketchRecorder.whilePaused(this::rebuildDailyRollupsPaused);
+    }
+
+    private int rebuildDailyRollupsPaused() throws ExecutionException, InterruptedException {
+        RollupRebuild rebuild = firestoreSnapshots.read(snapshot -> {
+            Map<LocalDate, CounterDeltas> days = new HashMap<>();
+            Map<LocalDate, ReportSketches> sketches = new HashMap<>();
+            reportRepository.forEach(snapshot, r -> {
+                if (r.getCreatedAt() == null) {
+                    return;
+                }
+                LocalDate day = dailyRollupRepository.dayOf(r.getCreatedAt());
+                days.computeIfAbsent(day, d -> new CounterDeltas())
+                        .add(DailyRollupRepository.TOTAL, 1)
+                        .add(DailyRollupRepository.BY_CATEGORY, r.getCategory(), 1)
+                        .add(DailyRollupRepository.BY_STATUS, r.getStatus(), 1)
+                        .add(DailyRollupRepository.BY_PRIORITY, r.getPriority(), 1);
+                sketches.computeIfAbsent(day, d -> new ReportSketches()).add(r);
+            });
+            Map<LocalDate, Map<String, Long>> rollups = new HashMap<>();
+            days.forEach((day, counters) -> rollups.put(day, counters.asMap()));
+            return new RollupRebuild(rollups, sketches, dailyRollupRepository.read(snapshot),
+                    reportSketchRepository.read(snapshot));
+        });
+
+        dailyRollupRepository.rebuild(rebuild.storedRollups(), rebuild.rollups());
+        int skipped = reportSketchRepository.replaceAll(rebuild.storedSketches(), rebuild.sketches());
+        if (skipped > 0) {
+            logger.info("Kept the sketches of {} days that changed during the rebuild", skipped);
+        }
+        resultCache.invalidateAll();
+        return rebuild.rollups().size();
+    }
+
+    private record RollupRebuild(Map<LocalDate, Map<String, Long>> rollups, Map<LocalDate, ReportSketches> sketches,
+            CollectionSnapshot storedRollups, CollectionSnapshot storedSketches) {
+    }
+
+    /**
+     * Approximate distinct reporters over the last {@code days} days: overall,
+     * per day and for the {@value #TOP_AREAS} areas (geohash cells) with the
+     * most, merged from the per-day HyperLogLog sketches.
+     */
+    public Map<String, Object> getUniqueReporters(int days) throws ExecutionException, InterruptedException {
+        return resultCache.get("uniqueReporters:" + days, () -> {
+            LocalDate to = dailyRollupRepository.today();
+            LocalDate from = to.minusDays(Math.max(days, 1) - 1L);
+            SortedMap<LocalDate, ReportSketches> range = reportSketchRepository.findRange(from, to);
+
+            ReportSketches merged = new ReportSketches();
+            List<Map<String, Object>> daily = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                ReportSketches sketch = range.get(day);
+                Map<String, Object> item = new HashMap<>();
+                item.put("date", day.toString());
+                item.put("uniqueReporters", sketch != null ? sketch.reporters().estimate() : 0L);
+                daily.add(item);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            }
+
+            List<Map<String, Object>> areas = new ArrayList<>();
+            merged.areaReporters().forEach((area, sketch) -> {
+                Map<String, Object> item = new HashMap<>();
+                item.put("area", area);
+                item.put("uniqueReporters", sketch.estimate());
+                areas.add(item);
+            });
+            areas.sort((a, b) -> Long.compare((Long) b.get("uniqueReporters"), (Long) a.get("uniqueReporters")));
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("uniqueReporters", merged.reporters().estimate());
+            result.put("daily", daily);
+            result.put("areas", areas.subList(0, Math.min(TOP_AREAS, areas.size())));
+            return result;
+        });
+    }
+
+    /**
+     * The most-reported locations over the last {@code days} days, merged from
+     * the per-day Space-Saving sketches. Each count may overestimate the true
+     * count by at most its {@code error}.
+     */
+    public List<Map<String, Object>> getTopLocations(int days, int limit)
             throws ExecutionException, InterruptedException {
-        java.util.List<com.crimenet.model.CrimeReport> allReports = reportRepository.findAll();
-
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.List<com.crimenet.model.CrimeReport> filteredReports = allReports.stream()
-                .filter(r -> r.getCreatedAt() != null && r.getCreatedAt().toDate().getTime() >= cutoffTime)
-                .collect(java.util.stream.Collectors.toList());
-
-        // Group by date
-        java.util.Map<String, Long> dateCounts = filteredReports.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        r -> {
-                            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("MMM dd");
-                            return sdf.format(r.getCreatedAt().toDate());
-                        },
-                        java.util.stream.Collectors.counting()));
-
-        return dateCounts.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("date", entry.getKey());
-                    item.put("count", entry.getValue());
-                    return item;
-                })
-                .sorted((a, b) -> ((String) a.get("date")).compareTo((String) b.get("date")))
-                .collect(java.util.stream.Collectors.toList());
+        int top = Math.max(1, Math.min(limit, ReportSketches.LOCATION_CAPACITY));
+        return resultCache.get("topLocations:" + days + ":" + top, () -> {
+            LocalDate to = dailyRollupRepository.today();
+            LocalDate from = to.minusDays(Math.max(days, 1) - 1L);
+            ReportSketches merged = new ReportSketches();
+            reportSketchRepository.findRange(from, to).values().forEach(merged::merge);
+
+            List<Map<String, Object>> locations = new ArrayList<>();
+            for (Map<String, Object> counter : merged.locations().top(top)) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("location", counter.get("key"));
+                item.put("count", counter.get("count"));
+                item.put("error", counter.get("error"));
+                locations.add(item);
+            }
+            return locations;
+        });
+    }
+
+    /**
+     * p50/p90/p99 time-to-assign and time-to-resolve in seconds, overall and
+     * per category, priority and station, read from the resolution-time
+     * histograms. Quantiles are accurate to within 2%.
+     */
+    public Map<String, Object> getResolutionTimes() throws ExecutionException, InterruptedException {
+        return resultCache.get("resolutionTimes", this::loadResolutionTimes);
+    }
+
+    private Map<String, Object> loadResolutionTimes() throws ExecutionException, InterruptedException {
+        Map<String, CompletableFuture<Map<String, Map<String, Long>>>> reads = new LinkedHashMap<>();
+        for (String metric : ResolutionTimeRepository.METRICS) {
+            reads.put(metric, resolutionTimeRepository.findCountersAsync(metric));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Map<String, Map<String, Long>>>> read : reads.entrySet()) {
+            Map<String, Map<String, Long>> counters = read.getValue().get();
+            Map<String, Object> metric = new LinkedHashMap<>();
+            for (String dimension : ResolutionTimeRepository.DIMENSIONS) {
+                Map<String, LogHistogram> histograms = new TreeMap<>();
+                counters.getOrDefault(dimension, Map.of()).forEach((counter, count) -> {
+                    int separator = counter.lastIndexOf('.');
+                    histograms.computeIfAbsent(counter.substring(0, separator), value -> new LogHistogram())
+                            .add(Integer.parseInt(counter.substring(separator + 1)), count);
+                });
+                if (ResolutionTimeRepository.ALL.equals(dimension)) {
+                    metric.put(dimension, percentiles(histograms.getOrDefault(dimension, new LogHistogram())));
+                } else {
+                    Map<String, Object> byValue = new LinkedHashMap<>();
+                    histograms.forEach((value, histogram) -> byValue.put(value, percentiles(histogram)));
+                    metric.put(dimension, byValue);
+                }
+            }
+            result.put(read.getKey(), metric);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> percentiles(LogHistogram histogram) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("count", histogram.count());
+        if (histogram.count() > 0) {
+            item.put("p50", Math.round(histogram.quantile(0.50)));
+            item.put("p90", Math.round(histogram.quantile(0.90)));
+            item.put("p99", Math.round(histogram.quantile(0.99)));
+        }
+        return item;
+    }
+
+    /**
+     * Rebuilds the resolution-time histograms by replaying every report's
+     * timeline in order: the first officer assignment counts towards
+     * time-to-assign, and every move from an unresolved into a resolved status
+     * towards time-to-resolve, both measured from the report's creation.
+     * Returns the number of durations recorded.
+     */
+    public long rebuildResolutionTimes() throws ExecutionException, InterruptedException {
+        // Only the fields the histograms are keyed by are kept per report
+        Map<String, CrimeReport> reports = new HashMap<>();
+        for (CrimeReport report : reportRepository.streamAll().toIterable()) {
+            if (report.getReportId() != null && report.getCreatedAt() != null) {
+                CrimeReport dimensions = new CrimeReport();
+                dimensions.setCategory(report.getCategory());
+                dimensions.setPriority(report.getPriority());
+                dimensions.setStationId(report.getStationId());
+                dimensions.setCreatedAt(report.getCreatedAt());
+                reports.put(report.getReportId(), dimensions);
+            }
+        }
+
+        Map<String, Map<String, Map<String, Long>>> counters = new HashMap<>();
+        Set<String> assigned = new HashSet<>();
+        long recorded = 0;
+        for (Map.Entry<String, ReportTimeline> entry : reportRepository.streamAllTimelines().toIterable()) {
+            CrimeReport report = reports.get(entry.getKey());
+            ReportTimeline timeline = entry.getValue();
+            if (report == null || timeline.getCreatedAt() == null) {
+                continue;
+            }
+            long elapsedMillis = timeline.getCreatedAt().toDate().getTime() - report.getCreatedAt().toDate().getTime();
+            if (timeline.getNote() != null && timeline.getNote().startsWith(ReportService.OFFICER_ASSIGNED_NOTE)
+                    && assigned.add(entry.getKey())) {
+                record(counters, ResolutionTimeRepository.TIME_TO_ASSIGN, report, elapsedMillis);
+                recorded++;
+            }
+            if (!RESOLVED.contains(timeline.getStatusFrom()) && RESOLVED.contains(timeline.getStatusTo())) {
+                record(counters, ResolutionTimeRepository.TIME_TO_RESOLVE, report, elapsedMillis);
+                recorded++;
+            }
+        }
+
+        resolutionTimeRepository.replaceAll(counters);
+        resultCache.invalidateAll();
+        return recorded;
+    }
+
+    private static void record(Map<String, Map<String, Map<String, Long>>> counters, String metric,
+            CrimeReport report, long elapsedMillis) {
+        for (String dimension : ResolutionTimeRepository.DIMENSIONS) {
+            counters.computeIfAbsent(metric, m -> new HashMap<>())
+                    .computeIfAbsent(dimension, d -> new HashMap<>())
+                    .merge(ResolutionTimeRepository.counterFor(dimension, report, elapsedMillis), 1L, Long::sum);
+        }
+    }
+
+    public Flux<Map<String, Object>> streamCrimesByCategory(int days) {
+        // Reports are folded into the breakdown as they arrive, so memory stays
+        // proportional to the number of categories and statuses
+        return streamBreakdownSince(days).flatMapIterable(AnalyticsService::crimesByCategory);
+    }
+
+    public Flux<Map<String, Object>> streamCrimesByStatus(int days) {
+        return streamBreakdownSince(days).flatMapIterable(AnalyticsService::crimesByStatus);
+    }
+
+    public Flux<Map<String, Object>> streamCrimeTrends(int days) {
+        return Mono.fromFuture(() -> getCrimeTrendsAsync(days))
+                .flatMapIterable(trends -> trends);
+    }
+
+    private Mono<ReportBreakdown> streamBreakdownSince(int days) {
+        return reportRepository.streamCreatedSince(cutoff(days))
+                .collect(() -> new ReportBreakdown(REPORT_STATUSES), ReportBreakdown::add);
     }
 
     public Map<String, Object> getUserStats(String userId) throws ExecutionException, InterruptedException {
         Map<String, Object> stats = new HashMap<>();
 
-        // Get user's reports
-        java.util.List<com.crimenet.model.CrimeReport> userReports = reportRepository.findByUserId(userId);
-        stats.put("totalReports", userReports.size());
-        stats.put("activeCases", userReports.stream().filter(r -> "PENDING".equals(r.getStatus())
-                || "IN_PROGRESS".equals(r.getStatus()) || "INVESTIGATING".equals(r.getStatus())).count());
-        stats.put("resolvedCases", userReports.stream()
-                .filter(r -> "RESOLVED".equals(r.getStatus()) || "CLOSED".equals(r.getStatus())).count());
-
-        // Get user's tips
-        java.util.List<com.crimenet.model.AnonymousTip> userTips = tipRepository.findByUserId(userId);
-        stats.put("tipsSubmitted", userTips != null ? userTips.size() : 0);
+        // Count aggregations only, issued concurrently; none of the user's documents are downloaded
+        QueryFanOut.Result counts = new QueryFanOut(queryTimeoutMillis)
+                .fork("totalReports", reportRepository.countByUserIdAsync(userId))
+                .fork("activeCases", reportRepository.countByUserIdAndStatusInAsync(userId,
+                        List.of("PENDING", "IN_PROGRESS", "INVESTIGATING")))
+                .fork("resolvedCases", reportRepository.countByUserIdAndStatusInAsync(userId,
+                        List.of("RESOLVED", "CLOSED")))
+                .fork("tipsSubmitted", tipRepository.countByUserIdAsync(userId))
+                .join();
+
+        stats.putAll(counts.values());
+        if (!counts.isComplete()) {
+            // Partial result: the listed metrics are missing because their query timed out
+            stats.put("timedOut", counts.timedOut());
+        }
 
         return stats;
     }
@@ -8,10 +8,13 @@ import com.crimenet.repository.ChatMessageRepository;
 import com.crimenet.repository.ConversationRepository;
 import com.google.cloud.Timestamp;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Service
@@ -52,6 +55,10 @@ public class ChatService {
         return conversationRepository.findByParticipant(userId);
     }
 
+    public Flux<Conversation> streamUserConversations(String userId) {
+        return conversationRepository.streamByParticipant(userId);
+    }
+
     public ChatMessage sendMessage(String conversationId, ChatMessage message)
             throws ExecutionException, InterruptedException {
         // Verify conversation exists
@@ -62,20 +69,31 @@ public class ChatService {
         message.setCreatedAt(Timestamp.now());
         message.setDeliveredAt(Timestamp.now());
 
-        // Save message
-        chatMessageRepository.save(conversationId, message);
-
-        // Update conversation last message time
+        // Save message and update conversation last message time in parallel
         conversation.setLastMessageAt(Timestamp.now());
-        conversationRepository.save(conversation);
+        CompletableFuture.allOf(
+                chatMessageRepository.saveAsync(conversationId, message),
+                conversationRepository.saveAsync(conversation)).get();
 
         return message;
     }
 
     public List<ChatMessage> getMessages(String conversationId) throws ExecutionException, InterruptedException {
-        // Verify conversation exists
-        getConversationById(conversationId);
-        return chatMessageRepository.findByConversationId(conversationId);
+        // Verify conversation exists while the messages are being fetched
+        CompletableFuture<Conversation> conversation = conversationRepository.findByIdAsync(conversationId);
+        CompletableFuture<List<ChatMessage>> messages = chatMessageRepository.findByConversationIdAsync(conversationId);
+        if (conversation.get() == null) {
+            messages.cancel(true);
+            throw new NotFoundException("Conversation not found: " + conversationId);
+        }
+        return messages.get();
+    }
+
+    public Flux<ChatMessage> streamMessages(String conversationId) {
+        // Verify conversation exists before any message is written to the response
+        return Mono.fromFuture(() -> conversationRepository.findByIdAsync(conversationId))
+                .switchIfEmpty(Mono.error(new NotFoundException("Conversation not found: " + conversationId)))
+                .flatMapMany(conversation -> chatMessageRepository.streamByConversationId(conversationId));
     }
 
     public void markMessageAsRead(String conversationId, String messageId)
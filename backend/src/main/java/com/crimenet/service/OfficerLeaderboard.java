@@ -0,0 +1,165 @@
+package com.crimenet.service;
+
+import com.crimenet.repository.OfficerRatingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Officers ranked by rating, held in memory in rank order. Loaded from the
+ * per-officer aggregates (one document per rated officer), updated in place
+ * as this instance records or deletes feedback, and reloaded after the
+ * refresh interval to pick up feedback written by other instances.
+ *
+ * Officers are ranked by their average pulled towards {@value #PRIOR_MEAN}
+ * by {@value #PRIOR_WEIGHT} virtual ratings, so a single 5-star rating does
+ * not outrank a long record of 4.8s.
+ */
+@Component
+public class OfficerLeaderboard {
+
+    private static final double PRIOR_MEAN = 3.0;
+    private static final int PRIOR_WEIGHT = 5;
+    private static final int MAX_RATING = 5;
+
+    private static final Comparator<Entry> RANK_ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::count).reversed())
+            .thenComparing(Entry::officerId);
+
+    private final OfficerRatingRepository officerRatingRepository;
+    private final long refreshMillis;
+    private Map<String, Entry> byOfficer = new HashMap<>();
+    private TreeSet<Entry> ranked = new TreeSet<>(RANK_ORDER);
+    private long loadedAt = -1;
+    private boolean reloading;
+
+    public OfficerLeaderboard(OfficerRatingRepository officerRatingRepository,
+            @Value("${crimenet.analytics.officer-ratings.leaderboard-refresh-seconds:300}") long refreshSeconds) {
+        this.officerRatingRepository = officerRatingRepository;
+        this.refreshMillis = refreshSeconds * 1000L;
+    }
+
+    /**
+     * The top {@code limit} officers with at least {@code minRatings} ratings,
+     * each with rank, average, rating count and per-star counts.
+     */
+    public List<Map<String, Object>> top(int limit, int minRatings) throws ExecutionException, InterruptedException {
+        if (claimReload()) {
+            reload();
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : ranked) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (entry.count() >= minRatings) {
+                    result.add(entry.toMap(result.size() + 1));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Re-reads every officer's aggregate and swaps the result in. The read
+     * runs without holding the lock, so feedback keeps being recorded
+     * meanwhile; ratings recorded during the read are dropped with the old
+     * state, which is at most one refresh interval of this instance's
+     * ratings missing until the next reload.
+     */
+    public void reload() throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Long>> officers;
+        try {
+            officers = officerRatingRepository.findAll();
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            synchronized (this) {
+                reloading = false;
+            }
+            throw e;
+        }
+        Map<String, Entry> loadedByOfficer = new HashMap<>();
+        TreeSet<Entry> loadedRanked = new TreeSet<>(RANK_ORDER);
+        officers.forEach((officerId, counters) -> {
+            long[] byRating = new long[MAX_RATING + 1];
+            for (int rating = 1; rating <= MAX_RATING; rating++) {
+                byRating[rating] = counters.getOrDefault(OfficerRatingRepository.BY_RATING + "." + rating, 0L);
+            }
+            put(loadedByOfficer, loadedRanked, new Entry(officerId,
+                    counters.getOrDefault(OfficerRatingRepository.COUNT, 0L),
+                    counters.getOrDefault(OfficerRatingRepository.SUM, 0L), byRating));
+        });
+        synchronized (this) {
+            byOfficer = loadedByOfficer;
+            ranked = loadedRanked;
+            loadedAt = System.currentTimeMillis();
+            reloading = false;
+        }
+    }
+
+    /**
+     * Applies a rating this instance has just committed (delta 1) or deleted
+     * (delta -1). Ignored until the first load, which will include it.
+     */
+    public synchronized void record(String officerId, int rating, int delta) {
+        if (loadedAt < 0 || officerId == null || rating < 1 || rating > MAX_RATING) {
+            return;
+        }
+        Entry current = byOfficer.get(officerId);
+        long[] byRating = current != null ? current.byRating().clone() : new long[MAX_RATING + 1];
+        byRating[rating] += delta;
+        if (current != null) {
+            ranked.remove(current);
+            byOfficer.remove(officerId);
+        }
+        put(byOfficer, ranked, new Entry(officerId, (current != null ? current.count() : 0) + delta,
+                (current != null ? current.sum() : 0) + (long) delta * rating, byRating));
+    }
+
+    // Whether the caller should reload: never loaded, or stale and no other reload running
+    private synchronized boolean claimReload() {
+        boolean stale = loadedAt < 0 || System.currentTimeMillis() - loadedAt > refreshMillis;
+        if (!stale || (reloading && loadedAt >= 0)) {
+            return false;
+        }
+        reloading = true;
+        return true;
+    }
+
+    private static void put(Map<String, Entry> byOfficer, TreeSet<Entry> ranked, Entry entry) {
+        if (entry.count() > 0) {
+            byOfficer.put(entry.officerId(), entry);
+            ranked.add(entry);
+        }
+    }
+
+    private record Entry(String officerId, long count, long sum, long[] byRating) {
+
+        double score() {
+            return (sum + PRIOR_MEAN * PRIOR_WEIGHT) / (count + PRIOR_WEIGHT);
+        }
+
+        Map<String, Object> toMap(int rank) {
+            Map<String, Long> ratings = new LinkedHashMap<>();
+            for (int rating = 1; rating <= MAX_RATING; rating++) {
+                ratings.put(String.valueOf(rating), byRating[rating]);
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("rank", rank);
+            item.put("officerId", officerId);
+            item.put("averageRating", (double) sum / count);
+            item.put("ratingCount", count);
+            item.put("score", score());
+            item.put("ratings", ratings);
+            return item;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.crimenet.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent analytics queries concurrently and collects their results
+ * by metric name. Every branch gets the same timeout; a branch that exceeds it
+ * is reported in {@link Result#timedOut()} instead of failing the whole call,
+ * so latency is bounded by the slowest branch (or the timeout). Any other
+ * failure cancels the remaining branches and is rethrown.
+ *
+ * A timed-out or cancelled branch only stops its Firestore call if its future
+ * passes that on, as the futures from {@code FirestoreFutures} do; otherwise
+ * the call runs to completion in the background and its result is dropped.
+ */
+final class QueryFanOut {
+
+    record Result(Map<String, Object> values, List<String> timedOut) {
+        boolean isComplete() {
+            return timedOut.isEmpty();
+        }
+    }
+
+    private final long timeoutMillis;
+    private final Map<String, CompletableFuture<?>> branches = new LinkedHashMap<>();
+
+    QueryFanOut(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    QueryFanOut fork(String metric, CompletableFuture<?> query) {
+        branches.put(metric, query.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+        return this;
+    }
+
+    Result join() throws ExecutionException, InterruptedException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> timedOut = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<?>> branch : branches.entrySet()) {
+            try {
+                values.put(branch.getKey(), branch.getValue().get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    timedOut.add(branch.getKey());
+                    continue;
+                }
+                branches.values().forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+        return new Result(values, timedOut);
+    }
+}
@@ -0,0 +1,145 @@
+package com.crimenet.service;
+
+import com.crimenet.model.CrimeReport;
+import com.crimenet.repository.DailyRollupRepository;
+import com.crimenet.repository.ReportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Writes reports as CSV or NDJSON straight to a response stream. Reports are
+ * read one page at a time (ordered by createdAt, resuming after the last
+ * report written) and each page is written and flushed before the next is
+ * requested, so memory use is bounded by the page size however many reports
+ * are exported, and a slow client slows the scan down rather than queueing
+ * pages in memory.
+ *
+ * CSV text fields that start like a spreadsheet formula are prefixed with a
+ * quote so they are shown, not evaluated.
+ */
+@Service
+public class ReportExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final List<String> COLUMNS = List.of("reportId", "caseNumber", "createdAt", "updatedAt",
+            "incidentAt", "status", "category", "priority", "stationId", "assignedOfficerId", "title", "description",
+            "location", "latitude", "longitude", "isAnonymous", "userId");
+
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final ReportRepository reportRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+
+    public ReportExportService(ReportRepository reportRepository, DailyRollupRepository dailyRollupRepository,
+            ObjectMapper objectMapper, @Value("${crimenet.analytics.export.page-size:500}") int pageSize) {
+        this.reportRepository = reportRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes every report created from the start of {@code from} to the end of
+     * {@code to} (dates in the analytics time zone; either may be null) in
+     * {@code format}. The reporter of an anonymous report is left out.
+     */
+    public void export(String format, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException, ExecutionException, InterruptedException {
+        Timestamp start = from != null ? dailyRollupRepository.startOf(from) : null;
+        Timestamp end = to != null ? dailyRollupRepository.startOf(to.plusDays(1)) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        // One object per line: the newline is written explicitly instead of Jackson's space separator
+        json.setRootValueSeparator(null);
+        boolean csv = CSV.equals(format);
+        if (csv) {
+            writeCsvRow(writer, COLUMNS.toArray());
+        }
+
+        CrimeReport last = null;
+        while (true) {
+            List<CrimeReport> page = reportRepository.findPageCreatedBetween(start, end, last, pageSize);
+            for (CrimeReport report : page) {
+                Object[] values = values(report);
+                if (csv) {
+                    writeCsvRow(writer, values);
+                } else {
+                    json.writeStartObject();
+                    for (int i = 0; i < values.length; i++) {
+                        json.writeObjectField(COLUMNS.get(i), values[i]);
+                    }
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+            }
+            json.flush();
+            writer.flush();
+            if (page.size() < pageSize) {
+                return;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
+    /** Validates {@code format}, returning it in lower case. */
+    public static String format(String format) {
+        String normalized = format != null ? format.toLowerCase() : "";
+        if (!CSV.equals(normalized) && !NDJSON.equals(normalized)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        return normalized;
+    }
+
+    private static Object[] values(CrimeReport report) {
+        boolean anonymous = Boolean.TRUE.equals(report.getIsAnonymous());
+        return new Object[] { report.getReportId(), report.getCaseNumber(), iso(report.getCreatedAt()),
+                iso(report.getUpdatedAt()), iso(report.getIncidentAt()), report.getStatus(), report.getCategory(),
+                report.getPriority(), report.getStationId(), report.getAssignedOfficerId(), report.getTitle(),
+                report.getDescription(), report.getLocation(), report.getLatitude(), report.getLongitude(),
+                anonymous, anonymous ? null : report.getUserId() };
+    }
+
+    private static String iso(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toDate().toInstant().toString() : null;
+    }
+
+    // RFC 4180: fields containing a separator, quote or line break are quoted, quotes doubled
+    private static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i] != null ? values[i].toString() : "";
+            if (values[i] instanceof String && !value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+                // Free text starting like a formula would be evaluated when the file is opened in a spreadsheet
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
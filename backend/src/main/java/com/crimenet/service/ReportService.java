@@ -1,23 +1,53 @@
 package com.crimenet.service;
 
+import com.crimenet.analytics.ReportSpikeDetector;
+import com.crimenet.exception.ConflictException;
 import com.crimenet.exception.NotFoundException;
 import com.crimenet.model.CrimeReport;
 import com.crimenet.model.ReportTimeline;
+import com.crimenet.repository.CounterDeltas;
+import com.crimenet.repository.DailyRollupRepository;
 import com.crimenet.repository.ReportRepository;
+import com.crimenet.repository.ResolutionTimeRepository;
+import com.crimenet.repository.StatisticsRepository;
+import com.crimenet.repository.Versioned;
 import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 @Service
 public class ReportService {
 
-    private final ReportRepository reportRepository;
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    // Shared with the resolution-time backfill, which replays timelines with the same rules
+    static final String OFFICER_ASSIGNED_NOTE = "Officer assigned: ";
+    static final List<String> RESOLVED_STATUSES = List.of("RESOLVED", "CLOSED");
 
-    public ReportService(ReportRepository reportRepository) {
+    private final ReportRepository reportRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ResolutionTimeRepository resolutionTimeRepository;
+    private final ReportSketchRecorder reportSketchRecorder;
+    private final ReportSpikeDetector reportSpikeDetector;
+
+    public ReportService(ReportRepository reportRepository, DailyRollupRepository dailyRollupRepository,
+            ResolutionTimeRepository resolutionTimeRepository, ReportSketchRecorder reportSketchRecorder,
+            ReportSpikeDetector reportSpikeDetector) {
         this.reportRepository = reportRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.resolutionTimeRepository = resolutionTimeRepository;
+        this.reportSketchRecorder = reportSketchRecorder;
+        this.reportSpikeDetector = reportSpikeDetector;
     }
 
     public CrimeReport createReport(CrimeReport report) throws ExecutionException, InterruptedException {
@@ -26,7 +56,20 @@ public class ReportService {
         report.setStatus("PENDING");
         report.setCreatedAt(Timestamp.now());
         report.setUpdatedAt(Timestamp.now());
-        reportRepository.save(report);
+        reportRepository.save(report,
+                new CounterDeltas()
+                        .add(StatisticsRepository.REPORTS_TOTAL, 1)
+                        .add(StatisticsRepository.REPORTS_BY_STATUS, report.getStatus(), 1),
+                dailyRollupRepository.deltasFor(report.getCreatedAt())
+                        .add(DailyRollupRepository.TOTAL, 1)
+                        .add(DailyRollupRepository.BY_CATEGORY, report.getCategory(), 1)
+                        .add(DailyRollupRepository.BY_STATUS, report.getStatus(), 1)
+                        .add(DailyRollupRepository.BY_PRIORITY, report.getPriority(), 1));
+
+        // Sketches are approximate and rebuilt with the rollups, so they are batched
+        // in memory and written off the request path
+        reportSketchRecorder.record(report);
+        reportSpikeDetector.record(report);
         return report;
     }
 
@@ -42,59 +85,125 @@ public class ReportService {
         return reportRepository.findByUserId(userId);
     }
 
+    public Flux<CrimeReport> streamReportsByUser(String userId) {
+        return reportRepository.streamByUserId(userId);
+    }
+
     public List<CrimeReport> getReportsByStatus(String status) throws ExecutionException, InterruptedException {
         return reportRepository.findByStatus(status);
     }
 
+    public Flux<CrimeReport> streamReportsByStatus(String status) {
+        return reportRepository.streamByStatus(status);
+    }
+
     public List<CrimeReport> getAllReports() throws ExecutionException, InterruptedException {
         return reportRepository.findAll();
     }
 
+    public Flux<CrimeReport> streamAllReports() {
+        return reportRepository.streamAll();
+    }
+
     public CrimeReport assignOfficer(String reportId, String officerId, String actorUid)
             throws ExecutionException, InterruptedException {
-        CrimeReport report = getReportById(reportId);
-
-        String oldStatus = report.getStatus();
-        report.setAssignedOfficerId(officerId);
-        report.setUpdatedAt(Timestamp.now());
-        reportRepository.save(report);
-
-        // Add timeline entry
-        ReportTimeline timeline = new ReportTimeline();
-        timeline.setTimelineId(UUID.randomUUID().toString());
-        timeline.setStatusFrom(oldStatus);
-        timeline.setStatusTo(oldStatus);
-        timeline.setNote("Officer assigned: " + officerId);
-        timeline.setActorUserId(actorUid);
-        timeline.setCreatedAt(Timestamp.now());
-        reportRepository.addTimeline(reportId, timeline);
-
-        return report;
+        return updateReport(reportId, (report, changes) -> {
+            report.setAssignedOfficerId(officerId);
+            changes.put("assignedOfficerId", officerId);
+            return newTimeline(report.getStatus(), report.getStatus(), OFFICER_ASSIGNED_NOTE + officerId, actorUid);
+        });
     }
 
     public CrimeReport updateStatus(String reportId, String newStatus, String note, String actorUid)
             throws ExecutionException, InterruptedException {
-        CrimeReport report = getReportById(reportId);
+        return updateReport(reportId, (report, changes) -> {
+            String oldStatus = report.getStatus();
+            report.setStatus(newStatus);
+            changes.put("status", newStatus);
+            return newTimeline(oldStatus, newStatus, note, actorUid);
+        });
+    }
 
-        String oldStatus = report.getStatus();
-        report.setStatus(newStatus);
-        report.setUpdatedAt(Timestamp.now());
-        reportRepository.save(report);
+    /**
+     * Read-modify-write of a report that only sends the changed fields, guarded
+     * by the update time of the version that was read. A concurrent writer
+     * causes a {@link ConflictException}; the change is then re-applied to a
+     * fresh read, up to {@link #MAX_UPDATE_ATTEMPTS} times.
+     */
+    private CrimeReport updateReport(String reportId, ReportChange change)
+            throws ExecutionException, InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            Versioned<CrimeReport> current = reportRepository.findVersionedById(reportId);
+            if (current == null) {
+                throw new NotFoundException("Report not found with id: " + reportId);
+            }
+
+            CrimeReport report = current.getValue();
+            String statusBefore = report.getStatus();
+            String officerBefore = report.getAssignedOfficerId();
+            Map<String, Object> changes = new HashMap<>();
+            ReportTimeline timeline = change.apply(report, changes);
+            report.setUpdatedAt(Timestamp.now());
+            changes.put("updatedAt", report.getUpdatedAt());
+
+            List<CounterDeltas> counters = new ArrayList<>();
+            counters.add(statusChange(new CounterDeltas(), StatisticsRepository.REPORTS_BY_STATUS,
+                    statusBefore, report.getStatus()));
+            counters.add(statusChange(dailyRollupRepository.deltasFor(report.getCreatedAt()),
+                    DailyRollupRepository.BY_STATUS, statusBefore, report.getStatus()));
+            if (report.getCreatedAt() != null) {
+                long elapsedMillis = timeline.getCreatedAt().toDate().getTime()
+                        - report.getCreatedAt().toDate().getTime();
+                if (officerBefore == null && report.getAssignedOfficerId() != null) {
+                    counters.addAll(resolutionTimeRepository.deltasFor(ResolutionTimeRepository.TIME_TO_ASSIGN,
+                            report, elapsedMillis));
+                }
+                if (!RESOLVED_STATUSES.contains(statusBefore) && RESOLVED_STATUSES.contains(report.getStatus())) {
+                    counters.addAll(resolutionTimeRepository.deltasFor(ResolutionTimeRepository.TIME_TO_RESOLVE,
+                            report, elapsedMillis));
+                }
+            }
+
+            try {
+                // Timeline entry and counters are committed in the same batch as the report update
+                reportRepository.updateWithTimeline(reportId, changes, current.getUpdateTime(), timeline,
+                        counters.toArray(new CounterDeltas[0]));
+                return report;
+            } catch (ConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Concurrent update of report {}, retrying (attempt {})", reportId, attempt);
+            }
+        }
+    }
+
+    private static CounterDeltas statusChange(CounterDeltas counters, String group, String from, String to) {
+        return counters != null ? counters.move(group, from, to) : null;
+    }
 
-        // Add timeline entry
+    private ReportTimeline newTimeline(String statusFrom, String statusTo, String note, String actorUid) {
         ReportTimeline timeline = new ReportTimeline();
         timeline.setTimelineId(UUID.randomUUID().toString());
-        timeline.setStatusFrom(oldStatus);
-        timeline.setStatusTo(newStatus);
+        timeline.setStatusFrom(statusFrom);
+        timeline.setStatusTo(statusTo);
         timeline.setNote(note);
         timeline.setActorUserId(actorUid);
         timeline.setCreatedAt(Timestamp.now());
-        reportRepository.addTimeline(reportId, timeline);
+        return timeline;
+    }
 
-        return report;
+    @FunctionalInterface
+    private interface ReportChange {
+        /** Mutates the report, records the changed fields and returns the timeline entry. */
+        ReportTimeline apply(CrimeReport report, Map<String, Object> changes);
     }
 
     public List<ReportTimeline> getTimeline(String reportId) throws ExecutionException, InterruptedException {
         return reportRepository.getTimelines(reportId);
     }
+
+    public Flux<ReportTimeline> streamTimeline(String reportId) {
+        return reportRepository.streamTimelines(reportId);
+    }
 }
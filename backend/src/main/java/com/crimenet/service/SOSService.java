@@ -1,18 +1,30 @@
 package com.crimenet.service;
 
 import com.crimenet.dto.UpdateSOSRequest;
+import com.crimenet.exception.ConflictException;
 import com.crimenet.exception.NotFoundException;
 import com.crimenet.model.SOSAlert;
+import com.crimenet.repository.CounterDeltas;
 import com.crimenet.repository.SOSRepository;
+import com.crimenet.repository.StatisticsRepository;
+import com.crimenet.repository.Versioned;
 import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 @Service
 public class SOSService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SOSService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final SOSRepository sosRepository;
 
     public SOSService(SOSRepository sosRepository) {
@@ -24,7 +36,9 @@ public class SOSService {
         sos.setStatus("ACTIVE");
         sos.setTriggeredAt(Timestamp.now());
         sos.setCreatedAt(Timestamp.now());
-        sosRepository.save(sos);
+        sosRepository.save(sos, new CounterDeltas()
+                .add(StatisticsRepository.SOS_TOTAL, 1)
+                .add(StatisticsRepository.SOS_BY_STATUS, sos.getStatus(), 1));
         return sos;
     }
 
@@ -32,37 +46,77 @@ public class SOSService {
         return sosRepository.findByUserId(userId);
     }
 
+    public Flux<SOSAlert> streamUserAlerts(String userId) {
+        return sosRepository.streamByUserId(userId);
+    }
+
     public java.util.List<SOSAlert> getActiveAlerts() throws ExecutionException, InterruptedException {
         return sosRepository.findByStatus("ACTIVE");
     }
 
+    public Flux<SOSAlert> streamActiveAlerts() {
+        return sosRepository.streamByStatus("ACTIVE");
+    }
+
     public SOSAlert cancelSOS(String sosId, String userId) throws ExecutionException, InterruptedException {
-        SOSAlert sos = sosRepository.findById(sosId);
-        if (sos == null) {
-            throw new NotFoundException("SOS alert not found: " + sosId);
-        }
-        if (!sos.getUserId().equals(userId)) {
-            throw new IllegalArgumentException("You can only cancel your own SOS alerts");
-        }
-        if (!"ACTIVE".equals(sos.getStatus())) {
-            throw new IllegalStateException("Can only cancel active alerts");
-        }
-        sos.setStatus("CANCELLED");
-        sos.setHandledAt(Timestamp.now());
-        sosRepository.save(sos);
-        return sos;
+        return updateAlert(sosId, (sos, changes) -> {
+            if (!sos.getUserId().equals(userId)) {
+                throw new IllegalArgumentException("You can only cancel your own SOS alerts");
+            }
+            if (!"ACTIVE".equals(sos.getStatus())) {
+                throw new IllegalStateException("Can only cancel active alerts");
+            }
+            sos.setStatus("CANCELLED");
+            sos.setHandledAt(Timestamp.now());
+            changes.put("status", sos.getStatus());
+            changes.put("handledAt", sos.getHandledAt());
+        });
     }
 
     public SOSAlert updateStatus(String sosId, String status) throws ExecutionException, InterruptedException {
-        SOSAlert sos = sosRepository.findById(sosId);
-        if (sos == null) {
-            throw new NotFoundException("SOS alert not found: " + sosId);
-        }
-        sos.setStatus(status);
-        if ("RESOLVED".equals(status) || "RESPONDED".equals(status)) {
-            sos.setHandledAt(Timestamp.now());
+        return updateAlert(sosId, (sos, changes) -> {
+            sos.setStatus(status);
+            changes.put("status", status);
+            if ("RESOLVED".equals(status) || "RESPONDED".equals(status)) {
+                sos.setHandledAt(Timestamp.now());
+                changes.put("handledAt", sos.getHandledAt());
+            }
+        });
+    }
+
+    /**
+     * Read-modify-write of an alert that only sends the changed fields, guarded
+     * by the update time of the version that was read, so the status counters
+     * move from the status actually replaced. A concurrent writer causes a
+     * {@link ConflictException}; the change is then re-applied to a fresh read,
+     * up to {@link #MAX_UPDATE_ATTEMPTS} times.
+     */
+    private SOSAlert updateAlert(String sosId, AlertChange change) throws ExecutionException, InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            Versioned<SOSAlert> current = sosRepository.findVersionedById(sosId);
+            if (current == null) {
+                throw new NotFoundException("SOS alert not found: " + sosId);
+            }
+            SOSAlert sos = current.getValue();
+            String statusBefore = sos.getStatus();
+            Map<String, Object> changes = new HashMap<>();
+            change.apply(sos, changes);
+            try {
+                sosRepository.update(sosId, changes, current.getUpdateTime(), new CounterDeltas()
+                        .move(StatisticsRepository.SOS_BY_STATUS, statusBefore, sos.getStatus()));
+                return sos;
+            } catch (ConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Concurrent update of SOS alert {}, retrying (attempt {})", sosId, attempt);
+            }
         }
-        sosRepository.save(sos);
-        return sos;
+    }
+
+    @FunctionalInterface
+    private interface AlertChange {
+        /** Mutates the alert and records the changed fields. */
+        void apply(SOSAlert sos, Map<String, Object> changes);
     }
 }
@@ -0,0 +1,140 @@
+package com.crimenet.service;
+
+import com.crimenet.repository.DailyRollupRepository;
+import com.crimenet.repository.OfficerRatingRepository;
+import com.crimenet.repository.ReportSketchRepository;
+import com.crimenet.repository.ResolutionTimeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Periodically rebuilds the materialized statistics counters, the daily
+ * report rollups, the resolution-time histograms and the officer rating
+ * aggregates from the source collections, correcting any drift from writes
+ * made outside this service. All but the statistics counters are also built
+ * once on startup if none exist yet.
+ */
+@Component
+public class StatisticsReconciliationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsReconciliationJob.class);
+
+    private final AnalyticsService analyticsService;
+    private final FeedbackService feedbackService;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ReportSketchRepository reportSketchRepository;
+    private final ResolutionTimeRepository resolutionTimeRepository;
+    private final OfficerRatingRepository officerRatingRepository;
+    private final TaskScheduler taskScheduler;
+
+    public StatisticsReconciliationJob(AnalyticsService analyticsService, FeedbackService feedbackService,
+            DailyRollupRepository dailyRollupRepository, ReportSketchRepository reportSketchRepository,
+            ResolutionTimeRepository resolutionTimeRepository, OfficerRatingRepository officerRatingRepository,
+            TaskScheduler taskScheduler) {
+        this.analyticsService = analyticsService;
+        this.feedbackService = feedbackService;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.reportSketchRepository = reportSketchRepository;
+        this.resolutionTimeRepository = resolutionTimeRepository;
+        this.officerRatingRepository = officerRatingRepository;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @Scheduled(cron = "${crimenet.analytics.statistics.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        try {
+            analyticsService.rebuildStatistics();
+            logger.info("Rebuilt statistics counters");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild statistics counters: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${crimenet.analytics.rollups.reconcile-cron:0 30 3 * * SUN}")
+    public void reconcileDailyRollups() {
+        try {
+            int days = analyticsService.rebuildDailyRollups();
+            logger.info("Rebuilt daily report rollups for {} days", days);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild daily report rollups: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${crimenet.analytics.resolution-times.reconcile-cron:0 0 4 * * SUN}")
+    public void reconcileResolutionTimes() {
+        try {
+            long durations = analyticsService.rebuildResolutionTimes();
+            logger.info("Rebuilt resolution-time histograms from {} durations", durations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild resolution-time histograms: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${crimenet.analytics.officer-ratings.reconcile-cron:0 30 4 * * SUN}")
+    public void reconcileOfficerRatings() {
+        try {
+            int officers = feedbackService.rebuildOfficerRatings();
+            logger.info("Rebuilt rating aggregates for {} officers", officers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild officer rating aggregates: {}", e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapDailyRollups() {
+        try {
+            // Sketches were added after the rollups, so either being empty triggers the rebuild of both
+            if (dailyRollupRepository.isEmpty() || reportSketchRepository.isEmpty()) {
+                // Backfill off the startup thread; it scans every report once
+                taskScheduler.schedule(this::reconcileDailyRollups, Instant.now());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not check daily report rollups and sketches: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapResolutionTimes() {
+        try {
+            if (resolutionTimeRepository.isEmpty()) {
+                // Backfill off the startup thread; it scans every report and timeline once
+                taskScheduler.schedule(this::reconcileResolutionTimes, Instant.now());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not check resolution-time histograms: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapOfficerRatings() {
+        try {
+            if (officerRatingRepository.isEmpty()) {
+                // Backfill off the startup thread; it scans every feedback once
+                taskScheduler.schedule(this::reconcileOfficerRatings, Instant.now());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not check officer rating aggregates: {}", e.getMessage());
+        }
+    }
+}
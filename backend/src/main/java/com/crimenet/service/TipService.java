@@ -2,6 +2,8 @@ package com.crimenet.service;
 
 import com.crimenet.exception.NotFoundException;
 import com.crimenet.model.AnonymousTip;
+import com.crimenet.repository.CounterDeltas;
+import com.crimenet.repository.StatisticsRepository;
 import com.crimenet.repository.TipRepository;
 import com.google.cloud.Timestamp;
 import org.springframework.stereotype.Service;
@@ -25,7 +27,7 @@ public class TipService {
         tip.setStatus("PENDING");
         tip.setCreatedAt(Timestamp.now());
         tip.setUpdatedAt(Timestamp.now());
-        tipRepository.save(tip);
+        tipRepository.save(tip, new CounterDeltas().add(StatisticsRepository.TIPS_TOTAL, 1));
         return tip;
     }
 
@@ -0,0 +1,54 @@
+package com.crimenet.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+    }
+
+    @Test
+    void shorterHashIsPrefix() {
+        String hash = GeoHash.encode(17.3850, 78.4867, 9);
+        for (int precision = 1; precision < hash.length(); precision++) {
+            assertEquals(hash.substring(0, precision), GeoHash.encode(17.3850, 78.4867, precision));
+        }
+    }
+
+    @Test
+    void centerLiesInItsCell() {
+        double latitude = 17.3850;
+        double longitude = 78.4867;
+        for (int precision = 1; precision <= 9; precision++) {
+            String hash = GeoHash.encode(latitude, longitude, precision);
+            double[] center = GeoHash.center(hash);
+
+            assertEquals(hash, GeoHash.encode(center[0], center[1], precision));
+            // Cell height halves every 2.5 characters on average: 180 / 2^(5 * precision / 2)
+            double halfHeight = 180 / Math.pow(2, Math.floor(5 * precision / 2.0)) / 2;
+            double halfWidth = 360 / Math.pow(2, Math.ceil(5 * precision / 2.0)) / 2;
+            assertTrue(Math.abs(center[0] - latitude) <= halfHeight, "latitude at precision " + precision);
+            assertTrue(Math.abs(center[1] - longitude) <= halfWidth, "longitude at precision " + precision);
+        }
+    }
+
+    @Test
+    void centerOfKnownCell() {
+        double[] center = GeoHash.center("ezs42");
+
+        assertEquals(42.6049805, center[0], 1e-6);
+        assertEquals(-5.6030273, center[1], 1e-6);
+    }
+
+    @Test
+    void rejectsInvalidCharacters() {
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.center("ezs4a"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.crimenet.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense dictionary encoding of a low-cardinality string column: each distinct
+ * value gets the next ordinal on first sight and keeps it for the lifetime of
+ * the projection. Missing values are encoded as {@link #UNKNOWN}.
+ */
+final class Dictionary {
+
+    static final String UNKNOWN = "UNKNOWN";
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        String key = value != null ? value : UNKNOWN;
+        Integer ordinal = ordinals.get(key);
+        if (ordinal == null) {
+            ordinal = values.size();
+            values.add(key);
+            ordinals.put(key, ordinal);
+        }
+        return ordinal;
+    }
+
+    /** The ordinal of {@code value}, or -1 if it has never been seen. */
+    int lookup(String value) {
+        return ordinals.getOrDefault(value, -1);
+    }
+
+    String decode(int ordinal) {
+        return values.get(ordinal);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.crimenet.analytics;
+
+/** Dictionary-encoded report columns that can be filtered and grouped on. */
+enum Dimension {
+    CATEGORY("category"),
+    STATUS("status"),
+    PRIORITY("priority"),
+    STATION("stationId");
+
+    private final String field;
+
+    Dimension(String field) {
+        this.field = field;
+    }
+
+    /** The CrimeReport field (and request/response key) this dimension is read from. */
+    String field() {
+        return field;
+    }
+
+    int[] column(ReportColumns columns) {
+        return switch (this) {
+            case CATEGORY -> columns.category();
+            case STATUS -> columns.status();
+            case PRIORITY -> columns.priority();
+            case STATION -> columns.station();
+        };
+    }
+
+    Dictionary dictionary(ReportColumns columns) {
+        return switch (this) {
+            case CATEGORY -> columns.categories();
+            case STATUS -> columns.statuses();
+            case PRIORITY -> columns.priorities();
+            case STATION -> columns.stations();
+        };
+    }
+
+    /** Accepts the enum name or the field name, case-insensitively ("station", "stationId"). */
+    static Dimension of(String name) {
+        for (Dimension dimension : values()) {
+            if (dimension.name().equalsIgnoreCase(name) || dimension.field.equalsIgnoreCase(name)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension: " + name);
+    }
+}
@@ -0,0 +1,207 @@
+package com.crimenet.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Crime-density raster: a kernel density estimate of open reports over a
+ * fixed Web Mercator grid of 2^{@value #BASE_BITS} cells per side (about 300m
+ * at the equator, less towards the poles). Each report spreads its weight
+ * over the surrounding cells with a Gaussian kernel one cell wide, weighted
+ * by priority and decayed by age with the recency time constant.
+ *
+ * Age decay uses forward decay: a report is stored with weight
+ * {@code exp((createdAt - landmark) / recency)} for a fixed landmark, and
+ * queries scale the grid by {@code exp((landmark - now) / recency)}. A
+ * report's stored weight never changes, so creating, closing or deleting a
+ * report adds or subtracts the same 25 cells and nothing is recomputed.
+ */
+@Component
+@ConditionalOnProperty(name = "crimenet.analytics.projection.enabled", havingValue = "true", matchIfMissing = true)
+public class HotspotIndex implements ReportIndex {
+
+    public static final int MAX_RESOLUTION = 512;
+
+    private static final int BASE_BITS = 17;
+    private static final int CELLS = 1 << BASE_BITS;
+    private static final int KERNEL_RADIUS = 2;
+    private static final double[][] KERNEL = kernel();
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    // Same as ReportService.RESOLVED_STATUSES: closed reports no longer count towards hotspots
+    private static final Set<String> CLOSED_STATUSES = Set.of("RESOLVED", "CLOSED");
+    private static final Map<String, Double> PRIORITY_WEIGHTS = Map.of("HIGH", 3.0, "MEDIUM", 2.0, "LOW", 1.0);
+
+    private final ReportProjection reportProjection;
+    private final double recencyMillis;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private long landmark = System.currentTimeMillis();
+
+    public HotspotIndex(ReportProjection reportProjection,
+            @Value("${crimenet.analytics.hotspots.recency-days:30}") long recencyDays) {
+        this.reportProjection = reportProjection;
+        this.recencyMillis = recencyDays * 86_400_000.0;
+        reportProjection.register(this);
+    }
+
+    /** A density raster, row-major from the north-west corner. */
+    public record Grid(int columns, int rows, float max, float[] values) {
+    }
+
+    /**
+     * The density inside the bounding box, summed into a grid of at most
+     * {@code resolution} cells per side (fewer when the box spans fewer base
+     * cells). Values are priority-weighted reports per cell, discounted by age.
+     */
+    public Grid density(double minLng, double minLat, double maxLng, double maxLat, int resolution) {
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException(
+                    "bbox must be minLng,minLat,maxLng,maxLat and not cross the antimeridian");
+        }
+        if (resolution < 1 || resolution > MAX_RESOLUTION) {
+            throw new IllegalArgumentException("resolution must be between 1 and " + MAX_RESOLUTION);
+        }
+        int minX = cellX(minLng);
+        int maxX = cellX(maxLng);
+        // Mercator y grows southwards
+        int minY = cellY(maxLat);
+        int maxY = cellY(minLat);
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        int gridColumns = Math.min(resolution, width);
+        int gridRows = Math.min(resolution, height);
+
+        return reportProjection.read(columns -> {
+            double scale = Math.exp((landmark - System.currentTimeMillis()) / recencyMillis);
+            double[] sums = new double[gridColumns * gridRows];
+            if ((long) width * height <= cells.size()) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        Cell cell = cells.get(key(x, y));
+                        if (cell != null) {
+                            sums[outputIndex(x - minX, y - minY, width, height, gridColumns, gridRows)] +=
+                                    cell.weight;
+                        }
+                    }
+                }
+            } else {
+                // Fewer occupied cells than the box covers (zoomed out, sparse data): scan them instead
+                cells.forEach((key, cell) -> {
+                    int x = (int) (key >>> 32);
+                    int y = (int) (long) key;
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        sums[outputIndex(x - minX, y - minY, width, height, gridColumns, gridRows)] +=
+                                cell.weight;
+                    }
+                });
+            }
+
+            float[] values = new float[sums.length];
+            float max = 0;
+            for (int i = 0; i < sums.length; i++) {
+                // Adding and subtracting the same weights can leave tiny negative residues
+                values[i] = (float) Math.max(0, sums[i] * scale);
+                max = Math.max(max, values[i]);
+            }
+            return new Grid(gridColumns, gridRows, max, values);
+        });
+    }
+
+    @Override
+    public void clear() {
+        cells.clear();
+        landmark = System.currentTimeMillis();
+    }
+
+    @Override
+    public void add(ReportColumns columns, int row) {
+        update(columns, row, 1);
+    }
+
+    @Override
+    public void remove(ReportColumns columns, int row) {
+        update(columns, row, -1);
+    }
+
+    private void update(ReportColumns columns, int row, int sign) {
+        double lat = columns.latitude()[row];
+        double lng = columns.longitude()[row];
+        long created = columns.createdAt()[row];
+        if (Double.isNaN(lat) || Double.isNaN(lng) || created == Long.MIN_VALUE
+                || CLOSED_STATUSES.contains(columns.statuses().decode(columns.status()[row]))) {
+            return;
+        }
+        double weight = PRIORITY_WEIGHTS.getOrDefault(columns.priorities().decode(columns.priority()[row]), 1.0)
+                * Math.exp((created - landmark) / recencyMillis);
+        int centerX = cellX(lng);
+        int centerY = cellY(lat);
+        for (int dy = -KERNEL_RADIUS; dy <= KERNEL_RADIUS; dy++) {
+            int y = centerY + dy;
+            if (y < 0 || y >= CELLS) {
+                continue;
+            }
+            for (int dx = -KERNEL_RADIUS; dx <= KERNEL_RADIUS; dx++) {
+                // Wraps around the antimeridian
+                int x = Math.floorMod(centerX + dx, CELLS);
+                long key = key(x, y);
+                Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+                cell.weight += sign * weight * KERNEL[dy + KERNEL_RADIUS][dx + KERNEL_RADIUS];
+                cell.reports += sign;
+                if (cell.reports <= 0) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private static int outputIndex(int x, int y, int width, int height, int columns, int rows) {
+        int column = (int) ((long) x * columns / width);
+        int row = (int) ((long) y * rows / height);
+        return row * columns + column;
+    }
+
+    private static int cellX(double lng) {
+        double x = (lng + 180.0) / 360.0;
+        return Math.min(CELLS - 1, Math.max(0, (int) Math.floor(x * CELLS)));
+    }
+
+    private static int cellY(double lat) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat))));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return Math.min(CELLS - 1, Math.max(0, (int) Math.floor(y * CELLS)));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    // Gaussian with a standard deviation of one cell, normalized so each report adds its whole weight
+    private static double[][] kernel() {
+        int size = 2 * KERNEL_RADIUS + 1;
+        double[][] kernel = new double[size][size];
+        double total = 0;
+        for (int dy = -KERNEL_RADIUS; dy <= KERNEL_RADIUS; dy++) {
+            for (int dx = -KERNEL_RADIUS; dx <= KERNEL_RADIUS; dx++) {
+                double value = Math.exp(-(dx * dx + dy * dy) / 2.0);
+                kernel[dy + KERNEL_RADIUS][dx + KERNEL_RADIUS] = value;
+                total += value;
+            }
+        }
+        for (double[] kernelRow : kernel) {
+            for (int i = 0; i < size; i++) {
+                kernelRow[i] /= total;
+            }
+        }
+        return kernel;
+    }
+
+    private static final class Cell {
+        private double weight;
+        private int reports;
+    }
+}
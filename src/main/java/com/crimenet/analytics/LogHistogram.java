@@ -0,0 +1,68 @@
+package com.crimenet.analytics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch over positive values with logarithmic buckets:
+ * bucket {@code i} covers {@code (gamma^(i-1), gamma^i]}, so any quantile is
+ * returned within {@link #RELATIVE_ACCURACY} of the true value. Two sketches
+ * (or per-bucket counters kept elsewhere, e.g. in Firestore) merge by adding
+ * bucket counts. Values below 1 are counted in bucket 0.
+ */
+public final class LogHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long count;
+
+    public static int bucketOf(double value) {
+        return value <= 1 ? 0 : (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    public LogHistogram add(double value) {
+        return add(bucketOf(value), 1);
+    }
+
+    public LogHistogram add(int bucket, long bucketCount) {
+        if (bucketCount != 0) {
+            counts.merge(bucket, bucketCount, Long::sum);
+            count += bucketCount;
+        }
+        return this;
+    }
+
+    public LogHistogram merge(LogHistogram other) {
+        other.counts.forEach(this::add);
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** The {@code q}-quantile (0..1) of the recorded values, or NaN if there are none. */
+    public double quantile(double q) {
+        if (count <= 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return representative(bucket.getKey());
+            }
+        }
+        return representative(counts.lastKey());
+    }
+
+    // Midpoint (in relative terms) of the bucket's range, within RELATIVE_ACCURACY of any value in it
+    private static double representative(int bucket) {
+        return bucket == 0 ? 1 : 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+}
@@ -0,0 +1,166 @@
+package com.crimenet.analytics;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the fields analytics scans over: one primitive
+ * array per field, indexed by row, instead of one {@code CrimeReport} object
+ * per report. Rows are kept dense; removing a report moves the last row into
+ * its slot. Not thread-safe, {@link ReportProjection} guards access.
+ */
+final class ReportColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private final Dictionary priorities = new Dictionary();
+    private final Dictionary stations = new Dictionary();
+    private final Map<String, Integer> rowsById = new HashMap<>();
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    // Epoch millis; Long.MIN_VALUE when the report has no createdAt
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    // Epoch millis; Long.MIN_VALUE when the report has no incidentAt
+    private long[] incidentAt = new long[INITIAL_CAPACITY];
+    // NaN when the report has no coordinates
+    private double[] latitude = new double[INITIAL_CAPACITY];
+    private double[] longitude = new double[INITIAL_CAPACITY];
+    private int[] category = new int[INITIAL_CAPACITY];
+    private int[] status = new int[INITIAL_CAPACITY];
+    private int[] priority = new int[INITIAL_CAPACITY];
+    private int[] station = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /** Inserts or overwrites the row for {@code document}. */
+    void put(DocumentSnapshot document) {
+        Integer existing = rowsById.get(document.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+        } else {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            ids[row] = document.getId();
+            rowsById.put(document.getId(), row);
+        }
+
+        Timestamp created = document.getTimestamp("createdAt");
+        Timestamp incident = document.getTimestamp("incidentAt");
+        Double lat = document.getDouble("latitude");
+        Double lng = document.getDouble("longitude");
+        createdAt[row] = created != null ? created.toDate().getTime() : Long.MIN_VALUE;
+        incidentAt[row] = incident != null ? incident.toDate().getTime() : Long.MIN_VALUE;
+        latitude[row] = lat != null ? lat : Double.NaN;
+        longitude[row] = lng != null ? lng : Double.NaN;
+        category[row] = categories.encode(document.getString("category"));
+        status[row] = statuses.encode(document.getString("status"));
+        priority[row] = priorities.encode(document.getString("priority"));
+        station[row] = stations.encode(document.getString("stationId"));
+    }
+
+    void remove(String reportId) {
+        Integer removed = rowsById.remove(reportId);
+        if (removed == null) {
+            return;
+        }
+        int row = removed;
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            createdAt[row] = createdAt[last];
+            incidentAt[row] = incidentAt[last];
+            latitude[row] = latitude[last];
+            longitude[row] = longitude[last];
+            category[row] = category[last];
+            status[row] = status[last];
+            priority[row] = priority[last];
+            station[row] = station[last];
+            rowsById.put(ids[row], row);
+        }
+        ids[last] = null;
+    }
+
+    /** The row holding {@code reportId}, or -1 if it is not projected. */
+    int row(String reportId) {
+        return rowsById.getOrDefault(reportId, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String id(int row) {
+        return ids[row];
+    }
+
+    // Column accessors return the backing arrays; only rows [0, size) are valid
+
+    long[] createdAt() {
+        return createdAt;
+    }
+
+    long[] incidentAt() {
+        return incidentAt;
+    }
+
+    double[] latitude() {
+        return latitude;
+    }
+
+    double[] longitude() {
+        return longitude;
+    }
+
+    int[] category() {
+        return category;
+    }
+
+    int[] status() {
+        return status;
+    }
+
+    int[] priority() {
+        return priority;
+    }
+
+    int[] station() {
+        return station;
+    }
+
+    Dictionary categories() {
+        return categories;
+    }
+
+    Dictionary statuses() {
+        return statuses;
+    }
+
+    Dictionary priorities() {
+        return priorities;
+    }
+
+    Dictionary stations() {
+        return stations;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        incidentAt = Arrays.copyOf(incidentAt, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        category = Arrays.copyOf(category, capacity);
+        status = Arrays.copyOf(status, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        station = Arrays.copyOf(station, capacity);
+    }
+}
@@ -0,0 +1,17 @@
+package com.crimenet.analytics;
+
+/**
+ * Derived structure maintained alongside the {@link ReportProjection}. Calls
+ * happen under the projection's write lock: an update is a {@code remove} of
+ * the old row followed by an {@code add} of the new one, and a reload is a
+ * {@code clear} followed by an {@code add} per row. Queries against the index
+ * should run through {@link ReportProjection#read}.
+ */
+interface ReportIndex {
+
+    void clear();
+
+    void add(ReportColumns columns, int row);
+
+    void remove(ReportColumns columns, int row);
+}
@@ -0,0 +1,286 @@
+package com.crimenet.analytics;
+
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory columnar projection of the reports collection, kept current by a
+ * Firestore snapshot listener. The first snapshot loads every report; after
+ * that only changed documents are applied. Analytics queries scan the
+ * primitive columns under a read lock instead of reading Firestore.
+ *
+ * Enabled by default; set {@code crimenet.analytics.projection.enabled=false}
+ * to skip the listener (and the endpoints built on it).
+ */
+@Component
+@ConditionalOnProperty(name = "crimenet.analytics.projection.enabled", havingValue = "true", matchIfMissing = true)
+public class ReportProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportProjection.class);
+
+    private static final String COLLECTION_NAME = "reports";
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    // Upper bound on the dense group-by array; the product of the grouped dictionaries' sizes
+    private static final int MAX_CUBE_CELLS = 1 << 20;
+
+    private final Firestore firestore;
+    private final TaskScheduler taskScheduler;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ReportIndex> indexes = new ArrayList<>();
+
+    private ReportColumns columns = new ReportColumns();
+    private volatile boolean ready;
+    private volatile boolean stopped;
+    private ListenerRegistration registration;
+
+    public ReportProjection(Firestore firestore, TaskScheduler taskScheduler) {
+        this.firestore = firestore;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (stopped || registration != null) {
+            return;
+        }
+        boolean[] initial = { true };
+        registration = firestore.collection(COLLECTION_NAME).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                onListenerError(error);
+            } else if (initial[0]) {
+                initial[0] = false;
+                load(snapshot);
+            } else {
+                apply(snapshot);
+            }
+        });
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /** False until the first snapshot has been loaded, and again while the listener is reconnecting. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Counts reports matching {@code filters} (dimension -> accepted values)
+     * created in [{@code fromMillis}, {@code toMillis}), grouped by the
+     * {@code groupBy} dimensions. Either bound may be null. Dimensions are
+     * category, status, priority and stationId; reports missing a value are
+     * grouped under {@code UNKNOWN}.
+     */
+    public Map<String, Object> cube(List<String> groupBy, Map<String, List<String>> filters,
+            Long fromMillis, Long toMillis) {
+        List<Dimension> dimensions = new ArrayList<>();
+        for (String name : groupBy) {
+            Dimension dimension = Dimension.of(name);
+            if (!dimensions.contains(dimension)) {
+                dimensions.add(dimension);
+            }
+        }
+        Map<Dimension, List<String>> accepted = new HashMap<>();
+        filters.forEach((name, values) -> accepted.put(Dimension.of(name), values));
+        long from = fromMillis != null ? fromMillis : Long.MIN_VALUE;
+        long to = toMillis != null ? toMillis : Long.MAX_VALUE;
+
+        return read(columns -> {
+            int groups = dimensions.size();
+            int[][] groupColumns = new int[groups][];
+            int[] radix = new int[groups];
+            long cells = 1;
+            for (int g = 0; g < groups; g++) {
+                groupColumns[g] = dimensions.get(g).column(columns);
+                radix[g] = Math.max(dimensions.get(g).dictionary(columns).size(), 1);
+                cells *= radix[g];
+                if (cells > MAX_CUBE_CELLS) {
+                    throw new IllegalArgumentException("Too many groups for " + groupBy);
+                }
+            }
+
+            // Filters become ordinal -> accepted masks, checked with one array load per row
+            List<int[]> filterColumns = new ArrayList<>();
+            List<boolean[]> filterMasks = new ArrayList<>();
+            accepted.forEach((dimension, values) -> {
+                Dictionary dictionary = dimension.dictionary(columns);
+                boolean[] mask = new boolean[dictionary.size()];
+                for (String value : values) {
+                    int ordinal = dictionary.lookup(value);
+                    if (ordinal >= 0) {
+                        mask[ordinal] = true;
+                    }
+                }
+                filterColumns.add(dimension.column(columns));
+                filterMasks.add(mask);
+            });
+            int[][] filterColumnArray = filterColumns.toArray(new int[0][]);
+            boolean[][] filterMaskArray = filterMasks.toArray(new boolean[0][]);
+
+            long[] counts = new long[(int) cells];
+            long[] createdAt = columns.createdAt();
+            long total = 0;
+            rows:
+            for (int row = 0; row < columns.size(); row++) {
+                long created = createdAt[row];
+                if (created < from || created >= to) {
+                    continue;
+                }
+                for (int f = 0; f < filterColumnArray.length; f++) {
+                    if (!filterMaskArray[f][filterColumnArray[f][row]]) {
+                        continue rows;
+                    }
+                }
+                int cell = 0;
+                for (int g = 0; g < groups; g++) {
+                    cell = cell * radix[g] + groupColumns[g][row];
+                }
+                counts[cell]++;
+                total++;
+            }
+
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (int cell = 0; cell < counts.length; cell++) {
+                if (counts[cell] == 0) {
+                    continue;
+                }
+                Map<String, Object> item = new LinkedHashMap<>();
+                int remainder = cell;
+                String[] values = new String[groups];
+                for (int g = groups - 1; g >= 0; g--) {
+                    values[g] = dimensions.get(g).dictionary(columns).decode(remainder % radix[g]);
+                    remainder /= radix[g];
+                }
+                for (int g = 0; g < groups; g++) {
+                    item.put(dimensions.get(g).field(), values[g]);
+                }
+                item.put("count", counts[cell]);
+                items.add(item);
+            }
+            items.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("groupBy", dimensions.stream().map(Dimension::field).toList());
+            result.put("total", total);
+            result.put("rows", columns.size());
+            result.put("cells", items);
+            return result;
+        });
+    }
+
+    /** Adds {@code index} and fills it from the reports projected so far; later changes are applied to it too. */
+    void register(ReportIndex index) {
+        lock.writeLock().lock();
+        try {
+            indexes.add(index);
+            index.clear();
+            for (int row = 0; row < columns.size(); row++) {
+                index.add(columns, row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code query} against the columns (and any registered index) under
+     * the read lock; it must not keep references to them.
+     */
+    <R> R read(Function<ReportColumns, R> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load(QuerySnapshot snapshot) {
+        ReportColumns loaded = new ReportColumns();
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            loaded.put(document);
+        }
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+            for (ReportIndex index : indexes) {
+                index.clear();
+                for (int row = 0; row < loaded.size(); row++) {
+                    index.add(loaded, row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        logger.info("Loaded report projection with {} reports", loaded.size());
+    }
+
+    private void apply(QuerySnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                String reportId = change.getDocument().getId();
+                int row = columns.row(reportId);
+                if (row >= 0) {
+                    for (ReportIndex index : indexes) {
+                        index.remove(columns, row);
+                    }
+                }
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    columns.remove(reportId);
+                } else {
+                    columns.put(change.getDocument());
+                    row = columns.row(reportId);
+                    for (ReportIndex index : indexes) {
+                        index.add(columns, row);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void onListenerError(Exception error) {
+        // A failed listener is not restarted by the client; re-listen (and reload) after a delay
+        logger.warn("Report projection listener failed, retrying in {}s: {}", RETRY_DELAY.toSeconds(),
+                error.getMessage());
+        ready = false;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        if (!stopped) {
+            taskScheduler.schedule(this::start, Instant.now().plus(RETRY_DELAY));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.crimenet.analytics;
+
+import com.crimenet.model.CrimeReport;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sketches over the reports of one day: distinct reporters overall and per
+ * area (a {@value #AREA_GEOHASH_LENGTH}-character geohash cell, about 5km
+ * across), and the most-reported locations. Days merge into ranges.
+ */
+public final class ReportSketches {
+
+    // ~1.6% standard error for the daily reporter count, ~6.5% per area
+    public static final int REPORTER_PRECISION = 12;
+    public static final int AREA_PRECISION = 8;
+    public static final int AREA_GEOHASH_LENGTH = 5;
+    // Counters kept per day; a range merge can then rank the top 20 reliably
+    public static final int LOCATION_CAPACITY = 100;
+
+    private final HyperLogLog reporters;
+    private final Map<String, HyperLogLog> areaReporters;
+    private final SpaceSaving locations;
+
+    public ReportSketches() {
+        this(new HyperLogLog(REPORTER_PRECISION), new HashMap<>(), new SpaceSaving(LOCATION_CAPACITY));
+    }
+
+    public ReportSketches(HyperLogLog reporters, Map<String, HyperLogLog> areaReporters, SpaceSaving locations) {
+        this.reporters = reporters;
+        this.areaReporters = areaReporters;
+        this.locations = locations;
+    }
+
+    public ReportSketches add(CrimeReport report) {
+        String area = areaOf(report);
+        if (report.getUserId() != null) {
+            reporters.add(report.getUserId());
+            if (area != null) {
+                areaReporters.computeIfAbsent(area, key -> new HyperLogLog(AREA_PRECISION)).add(report.getUserId());
+            }
+        }
+        String location = locationOf(report);
+        if (location != null) {
+            locations.add(location);
+        }
+        return this;
+    }
+
+    public ReportSketches merge(ReportSketches other) {
+        reporters.merge(other.reporters);
+        other.areaReporters.forEach((area, sketch) -> areaReporters
+                .computeIfAbsent(area, key -> new HyperLogLog(AREA_PRECISION)).merge(sketch));
+        locations.merge(other.locations);
+        return this;
+    }
+
+    public HyperLogLog reporters() {
+        return reporters;
+    }
+
+    public Map<String, HyperLogLog> areaReporters() {
+        return areaReporters;
+    }
+
+    public SpaceSaving locations() {
+        return locations;
+    }
+
+    static String areaOf(CrimeReport report) {
+        if (report.getLatitude() == null || report.getLongitude() == null) {
+            return null;
+        }
+        return GeoHash.encode(report.getLatitude(), report.getLongitude(), AREA_GEOHASH_LENGTH);
+    }
+
+    /** The free-text location, normalized so spelling variants in case and spacing count together. */
+    static String locationOf(CrimeReport report) {
+        if (report.getLocation() == null || report.getLocation().isBlank()) {
+            return null;
+        }
+        return report.getLocation().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
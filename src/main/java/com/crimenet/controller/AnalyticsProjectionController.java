@@ -0,0 +1,152 @@
+package com.crimenet.controller;
+
+import com.crimenet.analytics.CrimePatternIndex;
+import com.crimenet.analytics.HotspotIndex;
+import com.crimenet.analytics.MapClusterIndex;
+import com.crimenet.analytics.ReportProjection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analytics answered from the in-memory report projection instead of
+ * Firestore. Endpoints return 503 until the projection's first load finishes.
+ */
+@RestController
+@ConditionalOnProperty(name = "crimenet.analytics.projection.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/api/analytics")
+public class AnalyticsProjectionController {
+
+    private final ReportProjection reportProjection;
+    private final MapClusterIndex mapClusterIndex;
+    private final HotspotIndex hotspotIndex;
+    private final CrimePatternIndex crimePatternIndex;
+
+    public AnalyticsProjectionController(ReportProjection reportProjection, MapClusterIndex mapClusterIndex,
+            HotspotIndex hotspotIndex, CrimePatternIndex crimePatternIndex) {
+        this.reportProjection = reportProjection;
+        this.mapClusterIndex = mapClusterIndex;
+        this.hotspotIndex = hotspotIndex;
+        this.crimePatternIndex = crimePatternIndex;
+    }
+
+    // Ad-hoc group-by counts, e.g. /cube?groupBy=category,status&priority=HIGH&days=30
+    @GetMapping("/cube")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCube(
+            @RequestParam(defaultValue = "") List<String> groupBy,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> priority,
+            @RequestParam(required = false) List<String> stationId,
+            @RequestParam(required = false) Integer days) {
+        if (!reportProjection.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            Map<String, List<String>> filters = new HashMap<>();
+            if (category != null) {
+                filters.put("category", category);
+            }
+            if (status != null) {
+                filters.put("status", status);
+            }
+            if (priority != null) {
+                filters.put("priority", priority);
+            }
+            if (stationId != null) {
+                filters.put("stationId", stationId);
+            }
+            Long from = days != null ? System.currentTimeMillis() - days * 24L * 60L * 60L * 1000L : null;
+            return ResponseEntity.ok(reportProjection.cube(groupBy, filters, from, null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Day-of-week x hour-of-day report counts, optionally for one category and/or station
+    @GetMapping("/patterns")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCrimePatterns(@RequestParam(required = false) String category,
+            @RequestParam(required = false) String stationId) {
+        if (!reportProjection.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.ok(crimePatternIndex.pattern(category, stationId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Report clusters for a map viewport; bbox is "minLng,minLat,maxLng,maxLat"
+    @GetMapping("/map-clusters")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<?> getMapClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        if (!reportProjection.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(mapClusterIndex.clusters(Double.parseDouble(parts[0].trim()),
+                    Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()),
+                    Double.parseDouble(parts[3].trim()), zoom));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Crime-density raster for a map viewport; bbox is "minLng,minLat,maxLng,maxLat".
+     * {@code format=binary} returns the values as big-endian float32s, row-major
+     * from the north-west corner, with the grid size in X-Grid-Columns/X-Grid-Rows.
+     */
+    @GetMapping("/hotspots")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public ResponseEntity<?> getHotspots(@RequestParam String bbox, @RequestParam(defaultValue = "128") int resolution,
+            @RequestParam(defaultValue = "json") String format) {
+        if (!reportProjection.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                return ResponseEntity.badRequest().build();
+            }
+            HotspotIndex.Grid grid = hotspotIndex.density(Double.parseDouble(parts[0].trim()),
+                    Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()),
+                    Double.parseDouble(parts[3].trim()), resolution);
+            if ("binary".equals(format)) {
+                ByteBuffer buffer = ByteBuffer.allocate(grid.values().length * Float.BYTES);
+                buffer.asFloatBuffer().put(grid.values());
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("X-Grid-Columns", String.valueOf(grid.columns()))
+                        .header("X-Grid-Rows", String.valueOf(grid.rows()))
+                        .header("X-Grid-Max", String.valueOf(grid.max()))
+                        .body(buffer.array());
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("bbox", bbox);
+            response.put("columns", grid.columns());
+            response.put("rows", grid.rows());
+            response.put("max", grid.max());
+            response.put("values", grid.values());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -2,13 +2,17 @@ package com.crimenet.controller;
 
 import com.crimenet.dto.RegisterRequest;
 import com.crimenet.model.User;
+import com.crimenet.security.FirebaseTokenCache;
+import com.crimenet.security.SessionTokenService;
+import com.crimenet.security.VerifiedToken;
 import com.crimenet.service.AuthService;
 import com.crimenet.service.UserService;
-import com.google.firebase.auth.FirebaseToken;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -17,10 +21,15 @@ public class AuthController {
 
     private final AuthService authService;
     private final UserService userService;
+    private final FirebaseTokenCache tokenCache;
+    private final SessionTokenService sessionTokenService;
 
-    public AuthController(AuthService authService, UserService userService) {
+    public AuthController(AuthService authService, UserService userService, FirebaseTokenCache tokenCache,
+            SessionTokenService sessionTokenService) {
         this.authService = authService;
         this.userService = userService;
+        this.tokenCache = tokenCache;
+        this.sessionTokenService = sessionTokenService;
     }
 
     @PostMapping("/register")
@@ -57,7 +66,7 @@ public class AuthController {
     public ResponseEntity<?> verify(@RequestHeader("Authorization") String token) {
         try {
             String idToken = token.replace("Bearer ", "");
-            FirebaseToken decodedToken = authService.verifyToken(idToken);
+            VerifiedToken decodedToken = authService.verifyToken(idToken);
 
             // Get user role from database
             User user = userService.getUserById(decodedToken.getUid());
@@ -71,4 +80,33 @@ public class AuthController {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
     }
+
+    /**
+     * Exchange a Firebase ID token for a short-lived session token that the API
+     * accepts in its place (Authorization: Bearer <sessionToken>).
+     * POST /api/auth/session
+     */
+    @PostMapping("/session")
+    public ResponseEntity<?> createSession(@RequestHeader("Authorization") String token) {
+        try {
+            String idToken = token.replace("Bearer ", "");
+            VerifiedToken decodedToken = authService.verifyToken(idToken);
+            String role = authService.getUserRole(decodedToken);
+
+            Map<String, Object> session = new HashMap<>();
+            session.put("sessionToken", sessionTokenService.issue(decodedToken, role));
+            session.put("expiresIn", sessionTokenService.expiresInSeconds(decodedToken));
+            session.put("uid", decodedToken.getUid());
+            session.put("role", role);
+            return ResponseEntity.ok(session);
+        } catch (Exception e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
+        }
+    }
+
+    @GetMapping("/token-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.getStats());
+    }
 }
@@ -0,0 +1,41 @@
+package com.crimenet.controller;
+
+import com.crimenet.model.ChatMessage;
+import com.crimenet.model.Conversation;
+import com.crimenet.security.FirebaseUserDetails;
+import com.crimenet.service.ChatService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming (NDJSON) variants of the chat read endpoints, enabled with the
+ * "reactive" profile and selected by {@code Accept: application/x-ndjson}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/api/chat", produces = MediaType.APPLICATION_NDJSON_VALUE)
+public class ChatStreamController {
+
+    private final ChatService chatService;
+
+    public ChatStreamController(ChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    @GetMapping("/conversations")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<Conversation> streamUserConversations(Authentication auth) {
+        FirebaseUserDetails userDetails = (FirebaseUserDetails) auth.getPrincipal();
+        return chatService.streamUserConversations(userDetails.getUid());
+    }
+
+    @GetMapping("/conversations/{conversationId}/messages")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<ChatMessage> streamMessages(@PathVariable String conversationId) {
+        return chatService.streamMessages(conversationId);
+    }
+}
@@ -3,12 +3,14 @@ package com.crimenet.controller;
 import com.crimenet.dto.AssignOfficerRequest;
 import com.crimenet.dto.CreateReportRequest;
 import com.crimenet.dto.UpdateStatusRequest;
+import com.crimenet.exception.ConflictException;
 import com.crimenet.model.CrimeReport;
 import com.crimenet.model.ReportTimeline;
 import com.crimenet.security.FirebaseUserDetails;
 import com.crimenet.service.ReportService;
 import com.google.cloud.Timestamp;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -113,6 +115,9 @@ public class ReportController {
             FirebaseUserDetails userDetails = (FirebaseUserDetails) auth.getPrincipal();
             CrimeReport updated = reportService.assignOfficer(reportId, request.getOfficerId(), userDetails.getUid());
             return ResponseEntity.ok(updated);
+        } catch (ConflictException e) {
+            logger.warn("Conflicting update to report {}: {}", reportId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("Error assigning officer to report {}: {}", reportId, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -130,6 +135,9 @@ public class ReportController {
             CrimeReport updated = reportService.updateStatus(reportId, request.getStatus(), request.getNote(),
                     userDetails.getUid());
             return ResponseEntity.ok(updated);
+        } catch (ConflictException e) {
+            logger.warn("Conflicting update to report {}: {}", reportId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("Error updating status for report {}: {}", reportId, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
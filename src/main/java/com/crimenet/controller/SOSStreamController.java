@@ -0,0 +1,40 @@
+package com.crimenet.controller;
+
+import com.crimenet.model.SOSAlert;
+import com.crimenet.security.FirebaseUserDetails;
+import com.crimenet.service.SOSService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming (NDJSON) variants of the SOS read endpoints, enabled with the
+ * "reactive" profile and selected by {@code Accept: application/x-ndjson}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/api/sos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+public class SOSStreamController {
+
+    private final SOSService sosService;
+
+    public SOSStreamController(SOSService sosService) {
+        this.sosService = sosService;
+    }
+
+    @GetMapping("/my-alerts")
+    @PreAuthorize("hasAnyRole('CITIZEN', 'POLICE', 'ADMIN')")
+    public Flux<SOSAlert> streamMyAlerts(Authentication auth) {
+        FirebaseUserDetails userDetails = (FirebaseUserDetails) auth.getPrincipal();
+        return sosService.streamUserAlerts(userDetails.getUid());
+    }
+
+    @GetMapping("/active")
+    @PreAuthorize("hasAnyRole('POLICE', 'ADMIN')")
+    public Flux<SOSAlert> streamActiveAlerts() {
+        return sosService.streamActiveAlerts();
+    }
+}
@@ -2,10 +2,11 @@ package com.crimenet.repository;
 
 import com.crimenet.model.ChatMessage;
 import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QuerySnapshot;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -20,34 +21,51 @@ public class ChatMessageRepository {
     }
 
     public void save(String conversationId, ChatMessage message) throws ExecutionException, InterruptedException {
-        firestore.collection(CONVERSATIONS_COLLECTION)
+        saveAsync(conversationId, message).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(String conversationId, ChatMessage message) {
+        return FirestoreFutures.toCompletable(firestore.collection(CONVERSATIONS_COLLECTION)
                 .document(conversationId)
                 .collection("messages")
                 .document(message.getMessageId())
-                .set(message)
-                .get();
+                .set(message))
+                .thenApply(result -> null);
     }
 
     public List<ChatMessage> findByConversationId(String conversationId)
             throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(CONVERSATIONS_COLLECTION)
+        return findByConversationIdAsync(conversationId).get();
+    }
+
+    public CompletableFuture<List<ChatMessage>> findByConversationIdAsync(String conversationId) {
+        return FirestoreFutures.toCompletable(firestore.collection(CONVERSATIONS_COLLECTION)
                 .document(conversationId)
                 .collection("messages")
                 .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING)
-                .get()
-                .get();
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(ChatMessage.class))
+                        .collect(Collectors.toList()));
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(ChatMessage.class))
-                .collect(Collectors.toList());
+    public Flux<ChatMessage> streamByConversationId(String conversationId) {
+        return FirestoreStreams.stream(firestore.collection(CONVERSATIONS_COLLECTION)
+                .document(conversationId)
+                .collection("messages")
+                .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING), ChatMessage.class);
     }
 
     public void markAsRead(String conversationId, String messageId) throws ExecutionException, InterruptedException {
-        firestore.collection(CONVERSATIONS_COLLECTION)
+        markAsReadAsync(conversationId, messageId).get();
+    }
+
+    public CompletableFuture<Void> markAsReadAsync(String conversationId, String messageId) {
+        return FirestoreFutures.toCompletable(firestore.collection(CONVERSATIONS_COLLECTION)
                 .document(conversationId)
                 .collection("messages")
                 .document(messageId)
-                .update("readAt", com.google.cloud.Timestamp.now())
-                .get();
+                .update("readAt", com.google.cloud.Timestamp.now()))
+                .thenApply(result -> null);
     }
 }
@@ -0,0 +1,28 @@
+package com.crimenet.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * The documents of one collection as read by a {@link FirestoreSnapshot},
+ * handed back to the repository that rebuilds the collection.
+ */
+public final class CollectionSnapshot {
+
+    private final String collectionName;
+    private final Map<String, DocumentSnapshot> documents;
+
+    CollectionSnapshot(String collectionName, Map<String, DocumentSnapshot> documents) {
+        this.collectionName = collectionName;
+        this.documents = documents;
+    }
+
+    String collectionName() {
+        return collectionName;
+    }
+
+    Map<String, DocumentSnapshot> documents() {
+        return documents;
+    }
+}
@@ -1,12 +1,13 @@
 package com.crimenet.repository;
 
 import com.crimenet.model.Conversation;
-import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.QuerySnapshot;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -21,48 +22,70 @@ public class ConversationRepository {
     }
 
     public Conversation findById(String conversationId) throws ExecutionException, InterruptedException {
-        DocumentSnapshot document = firestore.collection(COLLECTION_NAME)
-                .document(conversationId)
-                .get()
-                .get();
+        return findByIdAsync(conversationId).get();
+    }
 
-        return document.exists() ? document.toObject(Conversation.class) : null;
+    public CompletableFuture<Conversation> findByIdAsync(String conversationId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(conversationId)
+                .get())
+                .thenApply(document -> document.exists() ? document.toObject(Conversation.class) : null);
     }
 
     public void save(Conversation conversation) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        saveAsync(conversation).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(Conversation conversation) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(conversation.getConversationId())
-                .set(conversation)
-                .get();
+                .set(conversation))
+                .thenApply(result -> null);
     }
 
     public List<Conversation> findByParticipant(String userId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return findByParticipantAsync(userId).get();
+    }
+
+    public CompletableFuture<List<Conversation>> findByParticipantAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .whereArrayContains("participants", userId)
                 .orderBy("lastMessageAt", com.google.cloud.firestore.Query.Direction.DESCENDING)
-                .get()
-                .get();
+                .get())
+                .thenApply(ConversationRepository::toConversations);
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(Conversation.class))
-                .collect(Collectors.toList());
+    public Flux<Conversation> streamByParticipant(String userId) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .whereArrayContains("participants", userId)
+                .orderBy("lastMessageAt", com.google.cloud.firestore.Query.Direction.DESCENDING), Conversation.class);
     }
 
     public List<Conversation> findByReportId(String reportId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("reportId", reportId)
-                .get()
-                .get();
+        return findByReportIdAsync(reportId).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(Conversation.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<Conversation>> findByReportIdAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("reportId", reportId)
+                .get())
+                .thenApply(ConversationRepository::toConversations);
     }
 
     public void delete(String conversationId) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        deleteAsync(conversationId).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String conversationId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(conversationId)
-                .delete()
-                .get();
+                .delete())
+                .thenApply(result -> null);
+    }
+
+    private static List<Conversation> toConversations(QuerySnapshot querySnapshot) {
+        return querySnapshot.getDocuments().stream()
+                .map(doc -> doc.toObject(Conversation.class))
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,59 @@
+package com.crimenet.repository;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.Transaction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Reads at one fixed read time, for rebuilds that recompute materialized
+ * documents from their source collections. Reading the sources and the
+ * documents they rebuild at the same instant lets a rebuild tell its own
+ * result apart from writes committed after the read time, which it must keep.
+ * Obtained from {@link FirestoreSnapshots#read}.
+ */
+public final class FirestoreSnapshot {
+
+    private final Transaction transaction;
+    private final Timestamp readTime;
+
+    FirestoreSnapshot(Transaction transaction, Timestamp readTime) {
+        this.transaction = transaction;
+        this.readTime = readTime;
+    }
+
+    public Timestamp readTime() {
+        return readTime;
+    }
+
+    /** Calls {@code action} for every document {@code query} matches, a page at a time in document id order. */
+    void forEach(Query query, Consumer<DocumentSnapshot> action) throws ExecutionException, InterruptedException {
+        Query ordered = query.orderBy(FieldPath.documentId());
+        DocumentSnapshot last = null;
+        while (true) {
+            Query page = (last != null ? ordered.startAfter(last) : ordered).limit(FirestoreStreams.PAGE_SIZE);
+            List<QueryDocumentSnapshot> documents = transaction.get(page).get().getDocuments();
+            documents.forEach(action);
+            if (documents.size() < FirestoreStreams.PAGE_SIZE) {
+                return;
+            }
+            last = documents.get(documents.size() - 1);
+        }
+    }
+
+    /** Every document of {@code collection}, with the update time it had at the read time. */
+    CollectionSnapshot collection(CollectionReference collection) throws ExecutionException, InterruptedException {
+        Map<String, DocumentSnapshot> documents = new HashMap<>();
+        forEach(collection, document -> documents.put(document.getId(), document));
+        return new CollectionSnapshot(collection.getId(), documents);
+    }
+}
@@ -0,0 +1,108 @@
+package com.crimenet.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Exposes Firestore query results as a {@link Flux} that reads them in pages of
+ * {@value #PAGE_SIZE} documents, each resuming after the last document of the
+ * previous one (so the query's ordering is kept). The next page is only read
+ * once the subscriber has asked for more than has been delivered, so a slow
+ * subscriber slows the reads down instead of queueing the result set in
+ * memory, and cancelling the subscription cancels the read in flight.
+ */
+public final class FirestoreStreams {
+
+    static final int PAGE_SIZE = 500;
+
+    private FirestoreStreams() {
+    }
+
+    public static <T> Flux<T> stream(Query query, Class<T> type) {
+        return stream(query, document -> document.toObject(type));
+    }
+
+    public static <T> Flux<T> stream(Query query, Function<DocumentSnapshot, T> mapper) {
+        return Flux.<DocumentSnapshot>create(sink -> {
+            Pager pager = new Pager(query, sink);
+            sink.onRequest(requested -> pager.fetch());
+            sink.onDispose(pager::cancel);
+        }).map(mapper);
+    }
+
+    /** Reads one page at a time while the subscriber has outstanding demand. */
+    private static final class Pager {
+        private final Query query;
+        private final FluxSink<DocumentSnapshot> sink;
+        private DocumentSnapshot last;
+        private CompletableFuture<QuerySnapshot> inFlight;
+        private boolean done;
+
+        private Pager(Query query, FluxSink<DocumentSnapshot> sink) {
+            this.query = query;
+            this.sink = sink;
+        }
+
+        private synchronized void fetch() {
+            if (done || inFlight != null || sink.requestedFromDownstream() == 0) {
+                return;
+            }
+            Query page = last != null ? query.startAfter(last) : query;
+            CompletableFuture<QuerySnapshot> future = FirestoreFutures.toCompletable(page.limit(PAGE_SIZE).get());
+            inFlight = future;
+            future.whenComplete(this::onPage);
+        }
+
+        /*
+         * Emits without holding the lock, so a slow subscriber does not block
+         * request() or cancel() calls. inFlight stays set until the page has
+         * been emitted, so a concurrent request cannot start the next read
+         * and overtake this page.
+         */
+        private void onPage(QuerySnapshot snapshot, Throwable error) {
+            synchronized (this) {
+                if (done || error != null) {
+                    inFlight = null;
+                    if (done) {
+                        return;
+                    }
+                    done = true;
+                }
+            }
+            if (error != null) {
+                sink.error(error);
+                return;
+            }
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            documents.forEach(sink::next);
+            if (documents.size() < PAGE_SIZE) {
+                synchronized (this) {
+                    done = true;
+                    inFlight = null;
+                }
+                sink.complete();
+                return;
+            }
+            synchronized (this) {
+                last = documents.get(documents.size() - 1);
+                inFlight = null;
+                fetch();
+            }
+        }
+
+        private synchronized void cancel() {
+            done = true;
+            if (inFlight != null) {
+                inFlight.cancel(true);
+            }
+        }
+    }
+}
@@ -3,13 +3,25 @@ package com.crimenet.repository;
 import com.crimenet.model.CrimeReport;
 import com.crimenet.model.ReportTimeline;
 import com.crimenet.model.Attachment;
-import com.google.cloud.firestore.DocumentSnapshot;
+import com.crimenet.exception.ConflictException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
@@ -23,120 +35,351 @@ public class ReportRepository {
     }
 
     public CrimeReport findById(String reportId) throws ExecutionException, InterruptedException {
-        DocumentSnapshot document = firestore.collection(COLLECTION_NAME)
-                .document(reportId)
-                .get()
-                .get();
+        return findByIdAsync(reportId).get();
+    }
 
-        return document.exists() ? document.toObject(CrimeReport.class) : null;
+    public CompletableFuture<CrimeReport> findByIdAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(reportId)
+                .get())
+                .thenApply(document -> document.exists() ? document.toObject(CrimeReport.class) : null);
     }
 
     public void save(CrimeReport report) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        saveAsync(report).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(CrimeReport report) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(report.getReportId())
-                .set(report)
-                .get();
+                .set(report))
+                .thenApply(result -> null);
+    }
+
+    /** Saves the report and applies the statistics counter changes in the same batch. */
+    public void save(CrimeReport report, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        saveAsync(report, counters).get();
+    }
+
+    public CompletableFuture<Void> saveAsync(CrimeReport report, CounterDeltas... counters) {
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_NAME).document(report.getReportId()), report);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .thenApply(result -> null);
     }
 
     public List<CrimeReport> findByUserId(String userId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("userId", userId)
-                .get()
-                .get();
+        return findByUserIdAsync(userId).get();
+    }
 
-        // Sort in-memory by createdAt desc to avoid requiring a Firestore composite
-        // index
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(CrimeReport.class))
-                .sorted((a, b) -> {
-                    if (a.getCreatedAt() == null && b.getCreatedAt() == null)
-                        return 0;
-                    if (a.getCreatedAt() == null)
-                        return 1;
-                    if (b.getCreatedAt() == null)
-                        return -1;
-                    return b.getCreatedAt().compareTo(a.getCreatedAt());
-                })
-                .collect(Collectors.toList());
+    public CompletableFuture<List<CrimeReport>> findByUserIdAsync(String userId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .get())
+                // Sort in-memory by createdAt desc to avoid requiring a Firestore composite
+                // index
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(CrimeReport.class))
+                        .sorted((a, b) -> {
+                            if (a.getCreatedAt() == null && b.getCreatedAt() == null)
+                                return 0;
+                            if (a.getCreatedAt() == null)
+                                return 1;
+                            if (b.getCreatedAt() == null)
+                                return -1;
+                            return b.getCreatedAt().compareTo(a.getCreatedAt());
+                        })
+                        .collect(Collectors.toList()));
     }
 
     public List<CrimeReport> findByStatus(String status) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("status", status)
-                .get()
-                .get();
+        return findByStatusAsync(status).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(CrimeReport.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<CrimeReport>> findByStatusAsync(String status) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status)
+                .get())
+                .thenApply(ReportRepository::toReports);
     }
 
     public List<CrimeReport> findByOfficerId(String officerId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("assignedOfficerId", officerId)
-                .get()
-                .get();
+        return findByOfficerIdAsync(officerId).get();
+    }
 
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(CrimeReport.class))
-                .collect(Collectors.toList());
+    public CompletableFuture<List<CrimeReport>> findByOfficerIdAsync(String officerId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("assignedOfficerId", officerId)
+                .get())
+                .thenApply(ReportRepository::toReports);
     }
 
     public void addTimeline(String reportId, ReportTimeline timeline) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        addTimelineAsync(reportId, timeline).get();
+    }
+
+    public CompletableFuture<Void> addTimelineAsync(String reportId, ReportTimeline timeline) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(reportId)
                 .collection("timelines")
                 .document(timeline.getTimelineId())
-                .set(timeline)
-                .get();
+                .set(timeline))
+                .thenApply(result -> null);
+    }
+
+    public Versioned<CrimeReport> findVersionedById(String reportId) throws ExecutionException, InterruptedException {
+        return findVersionedByIdAsync(reportId).get();
+    }
+
+    public CompletableFuture<Versioned<CrimeReport>> findVersionedByIdAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .document(reportId)
+                .get())
+                .thenApply(document -> document.exists()
+                        ? new Versioned<>(document.toObject(CrimeReport.class), document.getUpdateTime())
+                        : null);
+    }
+
+    /**
+     * Applies a field-level update to the report and writes a timeline entry in
+     * a single batch. The update only succeeds if the report has not changed
+     * since {@code expectedUpdateTime}; otherwise nothing is written and a
+     * {@link ConflictException} is thrown. Statistics counter changes are
+     * applied in the same batch.
+     */
+    public void updateWithTimeline(String reportId, Map<String, Object> changes, Timestamp expectedUpdateTime,
+            ReportTimeline timeline, CounterDeltas... counters) throws ExecutionException, InterruptedException {
+        try {
+            updateWithTimelineAsync(reportId, changes, expectedUpdateTime, timeline, counters).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConflictException conflict) {
+                throw conflict;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> updateWithTimelineAsync(String reportId, Map<String, Object> changes,
+            Timestamp expectedUpdateTime, ReportTimeline timeline, CounterDeltas... counters) {
+        DocumentReference reportRef = firestore.collection(COLLECTION_NAME).document(reportId);
+        WriteBatch batch = firestore.batch();
+        batch.update(reportRef, changes, Precondition.updatedAt(expectedUpdateTime));
+        batch.set(reportRef.collection("timelines").document(timeline.getTimelineId()), timeline);
+        CounterDocuments.increment(firestore, batch, counters);
+        return FirestoreFutures.toCompletable(batch.commit())
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return null;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (FirestoreFutures.hasStatus(cause, StatusCode.Code.FAILED_PRECONDITION)) {
+                        throw new ConflictException("Report " + reportId + " was modified concurrently");
+                    }
+                    throw new CompletionException(cause);
+                });
     }
 
     public List<ReportTimeline> getTimelines(String reportId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return getTimelinesAsync(reportId).get();
+    }
+
+    public CompletableFuture<List<ReportTimeline>> getTimelinesAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(reportId)
                 .collection("timelines")
                 .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING)
-                .get()
-                .get();
-
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(ReportTimeline.class))
-                .collect(Collectors.toList());
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(ReportTimeline.class))
+                        .collect(Collectors.toList()));
     }
 
     public void addAttachment(String reportId, Attachment attachment) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        addAttachmentAsync(reportId, attachment).get();
+    }
+
+    public CompletableFuture<Void> addAttachmentAsync(String reportId, Attachment attachment) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(reportId)
                 .collection("attachments")
                 .document(attachment.getAttachmentId())
-                .set(attachment)
-                .get();
+                .set(attachment))
+                .thenApply(result -> null);
     }
 
     public List<Attachment> getAttachments(String reportId) throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
+        return getAttachmentsAsync(reportId).get();
+    }
+
+    public CompletableFuture<List<Attachment>> getAttachmentsAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(reportId)
                 .collection("attachments")
-                .get()
-                .get();
-
-        return querySnapshot.getDocuments().stream()
-                .map(doc -> doc.toObject(Attachment.class))
-                .collect(Collectors.toList());
+                .get())
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(doc -> doc.toObject(Attachment.class))
+                        .collect(Collectors.toList()));
     }
 
     public void delete(String reportId) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME)
+        deleteAsync(reportId).get();
+    }
+
+    public CompletableFuture<Void> deleteAsync(String reportId) {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
                 .document(reportId)
-                .delete()
-                .get();
+                .delete())
+                .thenApply(result -> null);
     }
 
     public List<CrimeReport> findAll() throws ExecutionException, InterruptedException {
-        QuerySnapshot querySnapshot = firestore.collection(COLLECTION_NAME)
-                .get()
-                .get();
+        return findAllAsync().get();
+    }
+
+    public CompletableFuture<List<CrimeReport>> findAllAsync() {
+        return FirestoreFutures.toCompletable(firestore.collection(COLLECTION_NAME)
+                .get())
+                .thenApply(ReportRepository::toReports);
+    }
+
+    // Reports created at or after {@code since}; served by the single-field createdAt index
+    public List<CrimeReport> findCreatedSince(Timestamp since) throws ExecutionException, InterruptedException {
+        return findCreatedSinceAsync(since).get();
+    }
+
+    public CompletableFuture<List<CrimeReport>> findCreatedSinceAsync(Timestamp since) {
+        return FirestoreFutures.toCompletable(createdSince(since).get())
+                .thenApply(ReportRepository::toReports);
+    }
+
+    // Reports created in [from, to)
+    public List<CrimeReport> findCreatedBetween(Timestamp from, Timestamp to)
+            throws ExecutionException, InterruptedException {
+        return findCreatedBetweenAsync(from, to).get();
+    }
+
+    public CompletableFuture<List<CrimeReport>> findCreatedBetweenAsync(Timestamp from, Timestamp to) {
+        return FirestoreFutures.toCompletable(createdSince(from)
+                .whereLessThan("createdAt", to)
+                .get())
+                .thenApply(ReportRepository::toReports);
+    }
+
+    /**
+     * One page of reports created in [from, to) (either bound may be null),
+     * ordered by createdAt and then id, starting after {@code after} (null for
+     * the first page). Reports without a createdAt are not included.
+     */
+    public List<CrimeReport> findPageCreatedBetween(Timestamp from, Timestamp to, CrimeReport after, int pageSize)
+            throws ExecutionException, InterruptedException {
+        return findPageCreatedBetweenAsync(from, to, after, pageSize).get();
+    }
+
+    public CompletableFuture<List<CrimeReport>> findPageCreatedBetweenAsync(Timestamp from, Timestamp to,
+            CrimeReport after, int pageSize) {
+        Query query = firestore.collection(COLLECTION_NAME);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("createdAt", from);
+        }
+        if (to != null) {
+            query = query.whereLessThan("createdAt", to);
+        }
+        query = query.orderBy("createdAt").orderBy(FieldPath.documentId());
+        if (after != null) {
+            query = query.startAfter(after.getCreatedAt(), after.getReportId());
+        }
+        return FirestoreFutures.toCompletable(query.limit(pageSize).get())
+                .thenApply(ReportRepository::toReports);
+    }
+
+    /** Calls {@code action} for every report as of the snapshot's read time. */
+    public void forEach(FirestoreSnapshot snapshot, Consumer<CrimeReport> action)
+            throws ExecutionException, InterruptedException {
+        snapshot.forEach(firestore.collection(COLLECTION_NAME),
+                document -> action.accept(document.toObject(CrimeReport.class)));
+    }
+
+    // Newest first, like findByUserId; needs the userId/createdAt index from firestore.indexes.json
+    public Flux<CrimeReport> streamByUserId(String userId) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .orderBy("createdAt", Query.Direction.DESCENDING), CrimeReport.class);
+    }
+
+    public Flux<CrimeReport> streamByStatus(String status) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status), CrimeReport.class);
+    }
+
+    public Flux<CrimeReport> streamAll() {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME), CrimeReport.class);
+    }
+
+    public Flux<CrimeReport> streamCreatedSince(Timestamp since) {
+        return FirestoreStreams.stream(createdSince(since), CrimeReport.class);
+    }
+
+    public Flux<ReportTimeline> streamTimelines(String reportId) {
+        return FirestoreStreams.stream(firestore.collection(COLLECTION_NAME)
+                .document(reportId)
+                .collection("timelines")
+                .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING), ReportTimeline.class);
+    }
+
+    /**
+     * Every timeline entry of every report, oldest first, keyed by report id.
+     * Needs the collection-group createdAt index from firestore.indexes.json.
+     */
+    public Flux<Map.Entry<String, ReportTimeline>> streamAllTimelines() {
+        return FirestoreStreams.stream(firestore.collectionGroup("timelines")
+                .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING),
+                document -> Map.entry(document.getReference().getParent().getParent().getId(),
+                        document.toObject(ReportTimeline.class)));
+    }
+
+    public long countAll() throws ExecutionException, InterruptedException {
+        return countAllAsync().get();
+    }
+
+    public CompletableFuture<Long> countAllAsync() {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME));
+    }
+
+    public long countByStatus(String status) throws ExecutionException, InterruptedException {
+        return countByStatusAsync(status).get();
+    }
+
+    public CompletableFuture<Long> countByStatusAsync(String status) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status));
+    }
+
+    public long countByUserId(String userId) throws ExecutionException, InterruptedException {
+        return countByUserIdAsync(userId).get();
+    }
+
+    public CompletableFuture<Long> countByUserIdAsync(String userId) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId));
+    }
+
+    public long countByUserIdAndStatusIn(String userId, List<String> statuses) throws ExecutionException, InterruptedException {
+        return countByUserIdAndStatusInAsync(userId, statuses).get();
+    }
+
+    public CompletableFuture<Long> countByUserIdAndStatusInAsync(String userId, List<String> statuses) {
+        return FirestoreFutures.count(firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .whereIn("status", statuses));
+    }
+
+    private Query createdSince(Timestamp since) {
+        return firestore.collection(COLLECTION_NAME)
+                .whereGreaterThanOrEqualTo("createdAt", since);
+    }
 
+    private static List<CrimeReport> toReports(QuerySnapshot querySnapshot) {
         return querySnapshot.getDocuments().stream()
                 .map(doc -> doc.toObject(CrimeReport.class))
                 .collect(Collectors.toList());
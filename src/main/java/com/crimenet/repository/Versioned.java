@@ -0,0 +1,26 @@
+package com.crimenet.repository;
+
+import com.google.cloud.Timestamp;
+
+/**
+ * A document read together with its Firestore update time, which later writes
+ * pass back as a precondition so they only apply to the version that was read.
+ */
+public final class Versioned<T> {
+
+    private final T value;
+    private final Timestamp updateTime;
+
+    public Versioned(T value, Timestamp updateTime) {
+        this.value = value;
+        this.updateTime = updateTime;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public Timestamp getUpdateTime() {
+        return updateTime;
+    }
+}
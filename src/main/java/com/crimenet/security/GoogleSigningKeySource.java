@@ -0,0 +1,82 @@
+package com.crimenet.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads the X.509 certificates Google signs Firebase ID tokens with.
+ */
+public class GoogleSigningKeySource implements SigningKeySource {
+
+    public static final String DEFAULT_KEYS_URL =
+            "https://www.googleapis.com/robot/v1/metadata/x509/securetoken@system.gserviceaccount.com";
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final long DEFAULT_MAX_AGE_SECONDS = 3600;
+
+    private final URI keysUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public GoogleSigningKeySource(String keysUrl) {
+        this.keysUri = URI.create(keysUrl);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public SigningKeySet fetchKeys() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(keysUri)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching signing keys", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode() + " fetching signing keys");
+        }
+
+        Map<String, String> certificates = objectMapper.readValue(response.body(),
+                new TypeReference<Map<String, String>>() {
+                });
+        Map<String, PublicKey> keys = new HashMap<>();
+        try {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            for (Map.Entry<String, String> entry : certificates.entrySet()) {
+                byte[] pem = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                keys.put(entry.getKey(), factory.generateCertificate(new ByteArrayInputStream(pem)).getPublicKey());
+            }
+        } catch (CertificateException e) {
+            throw new IOException("Failed to parse signing certificate", e);
+        }
+
+        long maxAge = response.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(m -> Long.parseLong(m.group(1)))
+                .orElse(DEFAULT_MAX_AGE_SECONDS);
+        return new SigningKeySet(keys, maxAge);
+    }
+}
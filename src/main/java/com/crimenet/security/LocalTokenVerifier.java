@@ -0,0 +1,202 @@
+package com.crimenet.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.ErrorCode;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuthException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies Firebase ID tokens in-process against a prefetched key set, so the
+ * request path never does network I/O. Keys are loaded at startup and refreshed
+ * on a background thread shortly before the source's Cache-Control max-age runs out.
+ *
+ * Enabled with {@code crimenet.auth.verification-mode=local}.
+ */
+@Component
+@ConditionalOnProperty(name = "crimenet.auth.verification-mode", havingValue = "local")
+public class LocalTokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalTokenVerifier.class);
+
+    private static final String ISSUER_PREFIX = "https://securetoken.google.com/";
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    private static final long MIN_REFRESH_DELAY_SECONDS = 60;
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    private final String projectId;
+    private final SigningKeySource keySource;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private volatile SigningKeySet keys = new SigningKeySet(Map.of(), 0);
+    private volatile long lastFetchMillis;
+    private ScheduledFuture<?> nextRefresh;
+
+    public LocalTokenVerifier(FirebaseApp firebaseApp,
+            ObjectProvider<SigningKeySource> keySource,
+            @Value("${crimenet.auth.project-id:}") String projectId,
+            @Value("${crimenet.auth.local.keys-url:" + GoogleSigningKeySource.DEFAULT_KEYS_URL + "}") String keysUrl) {
+        this.projectId = projectId != null && !projectId.isBlank()
+                ? projectId
+                : firebaseApp.getOptions().getProjectId();
+        this.keySource = keySource.getIfAvailable(() -> new GoogleSigningKeySource(keysUrl));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "signing-key-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (projectId == null || projectId.isBlank()) {
+            throw new IllegalStateException("Local token verification needs a Firebase project id; "
+                    + "set crimenet.auth.project-id or FIREBASE_PROJECT_ID");
+        }
+        refreshKeys();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public VerifiedToken verify(String idToken) throws FirebaseAuthException {
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            throw invalid("Malformed ID token", null);
+        }
+
+        Map<String, Object> header = decodeJson(parts[0]);
+        if (!"RS256".equals(header.get("alg"))) {
+            throw invalid("Unexpected signing algorithm: " + header.get("alg"), null);
+        }
+        Object keyId = header.get("kid");
+        PublicKey key = keyId instanceof String ? keys.get((String) keyId) : null;
+        if (key == null) {
+            // Keys may have rotated since the last refresh; fetch in the background, never here
+            requestRefresh();
+            throw invalid("ID token signed with unknown key id: " + keyId, null);
+        }
+        if (!signatureMatches(key, parts)) {
+            throw invalid("ID token has an invalid signature", null);
+        }
+
+        Map<String, Object> claims = decodeJson(parts[1]);
+        long now = System.currentTimeMillis() / 1000L;
+        if (!projectId.equals(claims.get("aud"))) {
+            throw invalid("ID token has incorrect audience: " + claims.get("aud"), null);
+        }
+        if (!(ISSUER_PREFIX + projectId).equals(claims.get("iss"))) {
+            throw invalid("ID token has incorrect issuer: " + claims.get("iss"), null);
+        }
+        Object subject = claims.get("sub");
+        if (!(subject instanceof String) || ((String) subject).isEmpty() || ((String) subject).length() > 128) {
+            throw invalid("ID token has an invalid subject", null);
+        }
+        long expiresAt = numericClaim(claims, "exp");
+        if (expiresAt + CLOCK_SKEW_SECONDS < now) {
+            throw new FirebaseAuthException(ErrorCode.INVALID_ARGUMENT, "ID token has expired",
+                    null, null, AuthErrorCode.EXPIRED_ID_TOKEN);
+        }
+        if (numericClaim(claims, "iat") > now + CLOCK_SKEW_SECONDS) {
+            throw invalid("ID token issued in the future", null);
+        }
+        if (claims.containsKey("auth_time") && numericClaim(claims, "auth_time") > now + CLOCK_SKEW_SECONDS) {
+            throw invalid("ID token has an auth_time in the future", null);
+        }
+
+        Object email = claims.get("email");
+        return new VerifiedToken((String) subject, email instanceof String ? (String) email : null,
+                claims, expiresAt * 1000L);
+    }
+
+    private void refreshKeys() {
+        long delaySeconds;
+        try {
+            lastFetchMillis = System.currentTimeMillis();
+            SigningKeySet fetched = keySource.fetchKeys();
+            keys = fetched;
+            // Refresh at 90% of max-age so the next set is in place before this one expires
+            delaySeconds = Math.max(MIN_REFRESH_DELAY_SECONDS, fetched.getMaxAgeSeconds() * 9 / 10);
+            logger.debug("Loaded {} token signing keys, next refresh in {}s", fetched.size(), delaySeconds);
+        } catch (Exception e) {
+            delaySeconds = RETRY_DELAY_SECONDS;
+            logger.error("Failed to refresh token signing keys, retrying in {}s: {}", delaySeconds, e.getMessage());
+        }
+        refreshPending.set(false);
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            nextRefresh = scheduler.schedule(this::refreshKeys, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void requestRefresh() {
+        // Unknown kids are attacker-controlled, so don't let them trigger more than one fetch a minute
+        if (System.currentTimeMillis() - lastFetchMillis < MIN_REFRESH_DELAY_SECONDS * 1000L) {
+            return;
+        }
+        if (refreshPending.compareAndSet(false, true)) {
+            scheduler.execute(this::refreshKeys);
+        }
+    }
+
+    private boolean signatureMatches(PublicKey key, String[] parts) throws FirebaseAuthException {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return signature.verify(Base64.getUrlDecoder().decode(parts[2]));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw invalid("Failed to verify ID token signature", e);
+        }
+    }
+
+    private Map<String, Object> decodeJson(String segment) throws FirebaseAuthException {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(segment),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+        } catch (Exception e) {
+            throw invalid("Failed to decode ID token", e);
+        }
+    }
+
+    private static long numericClaim(Map<String, Object> claims, String name) throws FirebaseAuthException {
+        Object value = claims.get(name);
+        if (!(value instanceof Number)) {
+            throw invalid("ID token is missing the " + name + " claim", null);
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static FirebaseAuthException invalid(String message, Throwable cause) {
+        return new FirebaseAuthException(ErrorCode.INVALID_ARGUMENT, message, cause, null,
+                AuthErrorCode.INVALID_ID_TOKEN);
+    }
+}
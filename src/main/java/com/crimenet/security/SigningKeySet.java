@@ -0,0 +1,31 @@
+package com.crimenet.security;
+
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Public keys by key id ("kid"), with how long the source allows them to be cached.
+ */
+public class SigningKeySet {
+
+    private final Map<String, PublicKey> keys;
+    private final long maxAgeSeconds;
+
+    public SigningKeySet(Map<String, PublicKey> keys, long maxAgeSeconds) {
+        this.keys = Collections.unmodifiableMap(keys);
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public PublicKey get(String keyId) {
+        return keys.get(keyId);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+}
@@ -1,32 +1,133 @@
 package com.crimenet.service;
 
+import com.crimenet.security.LocalTokenVerifier;
+import com.crimenet.security.VerifiedToken;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
 import com.google.firebase.auth.UserRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
 public class AuthService {
 
-    public FirebaseToken verifyToken(String idToken) throws FirebaseAuthException {
-        return FirebaseAuth.getInstance().verifyIdToken(idToken);
+    private static final String DEFAULT_ROLE = "CITIZEN";
+
+    // uid -> role, filled by getUser lookups and by role changes made through this service;
+    // bounded, least recently used first out, and guarded by its own monitor
+    private final LinkedHashMap<String, CachedRole> roleCache;
+    private final long roleCacheTtlMillis;
+    private final int roleCacheMaxSize;
+    private final LocalTokenVerifier localVerifier;
+
+    public AuthService(@Value("${crimenet.auth.role-cache.ttl-seconds:3600}") long roleCacheTtlSeconds,
+            @Value("${crimenet.auth.role-cache.max-size:10000}") int roleCacheMaxSize,
+            ObjectProvider<LocalTokenVerifier> localVerifier) {
+        this.roleCacheTtlMillis = roleCacheTtlSeconds * 1000L;
+        this.roleCacheMaxSize = roleCacheMaxSize;
+        this.roleCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRole> eldest) {
+                return size() > AuthService.this.roleCacheMaxSize;
+            }
+        };
+        this.localVerifier = localVerifier.getIfAvailable();
+    }
+
+    /**
+     * Verifies an ID token, in-process when crimenet.auth.verification-mode=local,
+     * otherwise through the Firebase Admin SDK.
+     */
+    public VerifiedToken verifyToken(String idToken) throws FirebaseAuthException {
+        if (localVerifier != null) {
+            return localVerifier.verify(idToken);
+        }
+        return VerifiedToken.from(FirebaseAuth.getInstance().verifyIdToken(idToken));
+    }
+
+    /**
+     * Resolves the role for an already verified token without a network call in
+     * the common case. A role changed through {@link #setUserRole} wins over the
+     * (possibly stale) claim on the token; otherwise the "role" custom claim is
+     * used, and only tokens without one fall back to a cached getUser lookup.
+     */
+    public String getUserRole(VerifiedToken token) throws FirebaseAuthException {
+        String cached = getCachedRole(token.getUid());
+        if (cached != null) {
+            return cached;
+        }
+        Object claim = token.getClaims().get("role");
+        if (claim instanceof String && !((String) claim).isEmpty()) {
+            return (String) claim;
+        }
+        return getUserRole(token.getUid());
     }
 
     public String getUserRole(String uid) throws FirebaseAuthException {
+        String cached = getCachedRole(uid);
+        if (cached != null) {
+            return cached;
+        }
         UserRecord user = FirebaseAuth.getInstance().getUser(uid);
         Map<String, Object> claims = user.getCustomClaims();
-        return claims != null && claims.containsKey("role")
+        String role = claims != null && claims.containsKey("role")
                 ? (String) claims.get("role")
-                : "CITIZEN";
+                : DEFAULT_ROLE;
+        cacheRole(uid, role);
+        return role;
     }
 
     public void setUserRole(String uid, String role) throws FirebaseAuthException {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
         FirebaseAuth.getInstance().setCustomUserClaims(uid, claims);
+
+        // Tokens issued before this call still carry the old claim, so replace the
+        // cached entry with the new role rather than just dropping it
+        cacheRole(uid, role);
+    }
+
+    public void invalidateRole(String uid) {
+        synchronized (roleCache) {
+            roleCache.remove(uid);
+        }
+    }
+
+    private String getCachedRole(String uid) {
+        synchronized (roleCache) {
+            CachedRole cached = roleCache.get(uid);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAtMillis <= System.currentTimeMillis()) {
+                roleCache.remove(uid);
+                return null;
+            }
+            return cached.role;
+        }
+    }
+
+    private void cacheRole(String uid, String role) {
+        if (roleCacheTtlMillis > 0 && roleCacheMaxSize > 0) {
+            CachedRole cached = new CachedRole(role, System.currentTimeMillis() + roleCacheTtlMillis);
+            synchronized (roleCache) {
+                roleCache.put(uid, cached);
+            }
+        }
+    }
+
+    private static final class CachedRole {
+        private final String role;
+        private final long expiresAtMillis;
+
+        private CachedRole(String role, long expiresAtMillis) {
+            this.role = role;
+            this.expiresAtMillis = expiresAtMillis;
+        }
     }
 }
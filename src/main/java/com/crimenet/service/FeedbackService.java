@@ -1,19 +1,30 @@
 package com.crimenet.service;
 
 import com.crimenet.model.Feedback;
+import com.crimenet.repository.CollectionSnapshot;
+import com.crimenet.repository.CounterDeltas;
 import com.crimenet.repository.FeedbackRepository;
+import com.crimenet.repository.FirestoreSnapshots;
+import com.crimenet.repository.OfficerRatingRepository;
 import com.google.cloud.Timestamp;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+
     private final FeedbackRepository feedbackRepository;
+    private final OfficerRatingRepository officerRatingRepository;
+    private final OfficerLeaderboard officerLeaderboard;
+    private final FirestoreSnapshots firestoreSnapshots;
 
     public Feedback createFeedback(String userId, String officerId, String reportId, Integer rating, String comment)
             throws ExecutionException, InterruptedException {
@@ -32,7 +43,9 @@ public class FeedbackService {
         feedback.setComment(comment);
         feedback.setCreatedAt(Timestamp.now());
 
-        return feedbackRepository.save(feedback);
+        Feedback saved = feedbackRepository.save(feedback, officerRatingRepository.deltasFor(feedback, 1));
+        officerLeaderboard.record(officerId, rating, 1);
+        return saved;
     }
 
     public Feedback getFeedbackById(String feedbackId) throws ExecutionException, InterruptedException {
@@ -58,10 +71,47 @@ public class FeedbackService {
 
     // Get officer performance stats
     public Double getAverageRatingForOfficer(String officerId) throws ExecutionException, InterruptedException {
-        return feedbackRepository.getAverageRatingByOfficer(officerId);
+        Map<String, Long> counters = officerRatingRepository.findById(officerId);
+        long count = counters.getOrDefault(OfficerRatingRepository.COUNT, 0L);
+        return count > 0 ? (double) counters.getOrDefault(OfficerRatingRepository.SUM, 0L) / count : 0.0;
+    }
+
+    public List<Map<String, Object>> getOfficerLeaderboard(int limit, int minRatings)
+            throws ExecutionException, InterruptedException {
+        return officerLeaderboard.top(Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE)), minRatings);
     }
 
     public void deleteFeedback(String feedbackId) throws ExecutionException, InterruptedException {
-        feedbackRepository.delete(feedbackId);
+        feedbackRepository.delete(feedbackId, feedback -> officerRatingRepository.deltasFor(feedback, -1))
+                .ifPresent(feedback -> officerLeaderboard.record(feedback.getOfficerId(),
+                        feedback.getRating() != null ? feedback.getRating() : 0, -1));
+    }
+
+    /**
+     * Rebuilds every officer's rating aggregate from the feedback collection
+     * and reloads the leaderboard. Returns the number of rated officers. The
+     * feedback and the stored aggregates are read at the same read time and
+     * only the difference is written, so feedback created or deleted while
+     * the rebuild runs stays counted.
+     */
+    public int rebuildOfficerRatings() throws ExecutionException, InterruptedException {
+        RatingRebuild rebuild = firestoreSnapshots.read(snapshot -> {
+            Map<String, Map<String, Long>> aggregates = new HashMap<>();
+            feedbackRepository.forEach(snapshot, feedback -> {
+                CounterDeltas deltas = officerRatingRepository.deltasFor(feedback, 1);
+                if (deltas != null) {
+                    Map<String, Long> counters = aggregates.computeIfAbsent(feedback.getOfficerId(),
+                            id -> new HashMap<>());
+                    deltas.asMap().forEach((counter, delta) -> counters.merge(counter, delta, Long::sum));
+                }
+            });
+            return new RatingRebuild(aggregates, officerRatingRepository.read(snapshot));
+        });
+        officerRatingRepository.rebuild(rebuild.stored(), rebuild.aggregates());
+        officerLeaderboard.reload();
+        return rebuild.aggregates().size();
+    }
+
+    private record RatingRebuild(Map<String, Map<String, Long>> aggregates, CollectionSnapshot stored) {
     }
 }
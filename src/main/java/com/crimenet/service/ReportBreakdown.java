@@ -0,0 +1,130 @@
+package com.crimenet.service;
+
+import com.crimenet.model.CrimeReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Category x status matrix of report counts filled in a single pass.
+ * Category and status strings are dictionary-encoded to dense ids on first
+ * sight, so each report costs two hash lookups and one array increment, and
+ * every breakdown (totals, per category, per status, status groups) is read
+ * back from the matrix without touching the reports again.
+ */
+final class ReportBreakdown {
+
+    static final String UNKNOWN = "UNKNOWN";
+
+    private static final int INITIAL_CATEGORIES = 16;
+
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> statusIds = new HashMap<>();
+    private final List<String> statuses = new ArrayList<>();
+
+    // counts[category][status]; rows grow lazily when a new status shows up
+    private long[][] counts = new long[INITIAL_CATEGORIES][];
+    private long total;
+
+    ReportBreakdown(List<String> knownStatuses) {
+        knownStatuses.forEach(this::statusId);
+    }
+
+    ReportBreakdown add(CrimeReport report) {
+        int category = categoryId(report.getCategory() != null ? report.getCategory() : UNKNOWN);
+        int status = statusId(report.getStatus() != null ? report.getStatus() : UNKNOWN);
+        long[] row = counts[category];
+        if (status >= row.length) {
+            row = counts[category] = Arrays.copyOf(row, statuses.size());
+        }
+        row[status]++;
+        total++;
+        return this;
+    }
+
+    long total() {
+        return total;
+    }
+
+    /** Reports per status, in first-seen order, omitting statuses with no reports. */
+    Map<String, Long> byStatus() {
+        long[] column = new long[statuses.size()];
+        for (int c = 0; c < categories.size(); c++) {
+            long[] row = counts[c];
+            for (int s = 0; s < row.length; s++) {
+                column[s] += row[s];
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int s = 0; s < column.length; s++) {
+            if (column[s] > 0) {
+                result.put(statuses.get(s), column[s]);
+            }
+        }
+        return result;
+    }
+
+    /** Reports per category, in first-seen order. */
+    Map<String, Long> byCategory() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int c = 0; c < categories.size(); c++) {
+            result.put(categories.get(c), Arrays.stream(counts[c]).sum());
+        }
+        return result;
+    }
+
+    /** Reports in {@code category} whose status is one of {@code statusGroup}. */
+    long count(String category, List<String> statusGroup) {
+        Integer c = categoryIds.get(category);
+        return c == null ? 0 : sum(counts[c], statusGroup);
+    }
+
+    /** Reports in any category whose status is one of {@code statusGroup}. */
+    long count(List<String> statusGroup) {
+        long sum = 0;
+        for (int c = 0; c < categories.size(); c++) {
+            sum += sum(counts[c], statusGroup);
+        }
+        return sum;
+    }
+
+    private long sum(long[] row, List<String> statusGroup) {
+        long sum = 0;
+        for (String status : statusGroup) {
+            Integer s = statusIds.get(status);
+            if (s != null && s < row.length) {
+                sum += row[s];
+            }
+        }
+        return sum;
+    }
+
+    private int categoryId(String category) {
+        Integer id = categoryIds.get(category);
+        if (id == null) {
+            id = categories.size();
+            categories.add(category);
+            categoryIds.put(category, id);
+            if (id == counts.length) {
+                counts = Arrays.copyOf(counts, id * 2);
+            }
+            counts[id] = new long[statuses.size()];
+        }
+        return id;
+    }
+
+    private int statusId(String status) {
+        Integer id = statusIds.get(status);
+        if (id == null) {
+            id = statuses.size();
+            statuses.add(status);
+            statusIds.put(status, id);
+        }
+        return id;
+    }
+}
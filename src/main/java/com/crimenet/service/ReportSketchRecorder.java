@@ -0,0 +1,154 @@
+package com.crimenet.service;
+
+import com.crimenet.analytics.ReportSketches;
+import com.crimenet.model.CrimeReport;
+import com.crimenet.repository.DailyRollupRepository;
+import com.crimenet.repository.ReportSketchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Folds newly created reports into per-day sketches in memory and merges them
+ * into {@code analytics_sketches} once per flush interval, with one
+ * transaction per day touched. Concurrent reports then no longer contend on
+ * the day's document with a transaction each. A day whose merge fails stays
+ * pending and is retried at the next flush, and pending sketches are flushed
+ * on shutdown.
+ *
+ * Rebuilds run {@link #whilePaused paused}: pending sketches are flushed
+ * first, so the rebuild's scan already includes them, and nothing is merged
+ * until the rebuilt sketches are written.
+ */
+@Component
+public class ReportSketchRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportSketchRecorder.class);
+
+    private final ReportSketchRepository reportSketchRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final TaskScheduler taskScheduler;
+    private final Duration flushInterval;
+    private final Map<LocalDate, ReportSketches> pending = new HashMap<>();
+    // Held while flushing and for the whole of a rebuild
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ScheduledFuture<?> flushes;
+
+    @FunctionalInterface
+    public interface Rebuild<T> {
+        T run() throws ExecutionException, InterruptedException;
+    }
+
+    public ReportSketchRecorder(ReportSketchRepository reportSketchRepository,
+            DailyRollupRepository dailyRollupRepository, TaskScheduler taskScheduler,
+            @Value("${crimenet.analytics.sketches.flush-seconds:10}") long flushSeconds) {
+        this.reportSketchRepository = reportSketchRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.taskScheduler = taskScheduler;
+        this.flushInterval = Duration.ofSeconds(flushSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (flushes == null) {
+            flushes = taskScheduler.scheduleWithFixedDelay(this::scheduledFlush, flushInterval);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (flushes != null) {
+                flushes.cancel(false);
+            }
+        }
+        flush();
+    }
+
+    /** Counts a newly created report; reports without a creation time are ignored. */
+    public void record(CrimeReport report) {
+        if (report.getCreatedAt() == null) {
+            return;
+        }
+        LocalDate day = dailyRollupRepository.dayOf(report.getCreatedAt());
+        synchronized (pending) {
+            pending.computeIfAbsent(day, key -> new ReportSketches()).add(report);
+        }
+    }
+
+    /**
+     * Flushes the pending sketches, then runs {@code rebuild} with flushing
+     * paused. Reports recorded meanwhile are merged after it returns. A report
+     * that was already saved when the rebuild read the reports, but was only
+     * recorded after the flush, is counted twice in the top locations: a
+     * window of a few milliseconds per rebuild.
+     */
+    public <T> T whilePaused(Rebuild<T> rebuild) throws ExecutionException, InterruptedException {
+        flushLock.lock();
+        try {
+            flushPending();
+            return rebuild.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Merges the pending sketches into Firestore, waiting for a running rebuild to finish. */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Skipped while a rebuild runs instead of holding up a scheduler thread
+    private void scheduledFlush() {
+        if (flushLock.tryLock()) {
+            try {
+                flushPending();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private void flushPending() {
+        Map<LocalDate, ReportSketches> flushing;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushing = new HashMap<>(pending);
+            pending.clear();
+        }
+        flushing.forEach((day, sketches) -> {
+            try {
+                reportSketchRepository.merge(day, sketches);
+            } catch (ExecutionException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.warn("Could not update report sketches for {}, retrying at the next flush: {}", day,
+                        e.getMessage());
+                synchronized (pending) {
+                    pending.merge(day, sketches, ReportSketches::merge);
+                }
+            }
+        });
+    }
+}
@@ -1,17 +1,28 @@
 package com.crimenet.service;
 
+import com.crimenet.exception.ConflictException;
 import com.crimenet.exception.NotFoundException;
 import com.crimenet.model.User;
+import com.crimenet.repository.CounterDeltas;
+import com.crimenet.repository.StatisticsRepository;
 import com.crimenet.repository.UserRepository;
+import com.crimenet.repository.Versioned;
 import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final UserRepository userRepository;
 
     public UserService(UserRepository userRepository) {
@@ -30,27 +41,72 @@ public class UserService {
         user.setCreatedAt(Timestamp.now());
         user.setUpdatedAt(Timestamp.now());
         user.setStatus("ACTIVE");
-        userRepository.save(user);
+
+        // Registering an existing uid overwrites it, so only its role can change in the counters
+        User existing = userRepository.findById(user.getUid());
+        CounterDeltas counters = existing != null
+                ? new CounterDeltas().move(StatisticsRepository.USERS_BY_ROLE, existing.getRole(), user.getRole())
+                : new CounterDeltas()
+                        .add(StatisticsRepository.USERS_TOTAL, 1)
+                        .add(StatisticsRepository.USERS_BY_ROLE, user.getRole(), 1);
+        userRepository.save(user, counters);
     }
 
     public void updateUser(String uid, User updates) throws ExecutionException, InterruptedException {
-        User existing = getUserById(uid);
-
+        Map<String, Object> changes = new HashMap<>();
         if (updates.getFullName() != null)
-            existing.setFullName(updates.getFullName());
+            changes.put("fullName", updates.getFullName());
         if (updates.getPhone() != null)
-            existing.setPhone(updates.getPhone());
+            changes.put("phone", updates.getPhone());
         if (updates.getAddress() != null)
-            existing.setAddress(updates.getAddress());
+            changes.put("address", updates.getAddress());
         if (updates.getLanguagePreference() != null)
-            existing.setLanguagePreference(updates.getLanguagePreference());
+            changes.put("languagePreference", updates.getLanguagePreference());
 
-        existing.setUpdatedAt(Timestamp.now());
-        userRepository.save(existing);
+        // Field update, so a concurrent role change is not overwritten with the role read here
+        changes.put("updatedAt", Timestamp.now());
+        if (!userRepository.update(uid, changes)) {
+            throw new NotFoundException("User not found with uid: " + uid);
+        }
+    }
+
+    /**
+     * Changes the role guarded by the update time of the version that was
+     * read, so the role counters move from the role actually replaced. A
+     * concurrent writer causes a {@link ConflictException} and the change is
+     * retried on a fresh read, up to {@link #MAX_UPDATE_ATTEMPTS} times.
+     */
+    public void updateUserRole(String uid, String role) throws ExecutionException, InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            Versioned<User> current = userRepository.findVersionedById(uid);
+            if (current == null) {
+                throw new NotFoundException("User not found with uid: " + uid);
+            }
+            Map<String, Object> changes = new HashMap<>();
+            changes.put("role", role);
+            changes.put("updatedAt", Timestamp.now());
+            try {
+                userRepository.update(uid, changes, current.getUpdateTime(), new CounterDeltas()
+                        .move(StatisticsRepository.USERS_BY_ROLE, current.getValue().getRole(), role));
+                return;
+            } catch (ConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Concurrent update of user {}, retrying (attempt {})", uid, attempt);
+            }
+        }
     }
 
     public void deleteUser(String uid) throws ExecutionException, InterruptedException {
-        userRepository.delete(uid);
+        User existing = userRepository.findById(uid);
+        if (existing == null) {
+            userRepository.delete(uid);
+            return;
+        }
+        userRepository.delete(uid, new CounterDeltas()
+                .add(StatisticsRepository.USERS_TOTAL, -1)
+                .add(StatisticsRepository.USERS_BY_ROLE, existing.getRole(), -1));
     }
 
     public List<User> getUsersByRole(String role) throws ExecutionException, InterruptedException {
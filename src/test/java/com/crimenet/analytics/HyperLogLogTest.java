@@ -0,0 +1,80 @@
+package com.crimenet.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = 14;
+    // Three standard errors of a 2^14-register sketch
+    private static final double TOLERANCE = 3 * 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    void estimatesDistinctCountWithinErrorBound() {
+        for (int distinct : new int[] { 100, 5_000, 200_000 }) {
+            HyperLogLog sketch = new HyperLogLog(PRECISION);
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("user-" + i);
+            }
+            assertWithinTolerance(distinct, sketch.estimate());
+        }
+    }
+
+    @Test
+    void ignoresRepeatedValues() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                sketch.add("user-" + i);
+            }
+        }
+        assertWithinTolerance(1_000, sketch.estimate());
+    }
+
+    @Test
+    void mergeEqualsSketchOfTheUnion() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 60_000; i++) {
+            first.add("user-" + i);
+            union.add("user-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add("user-" + i);
+            union.add("user-" + i);
+        }
+
+        first.merge(second);
+
+        assertArrayEquals(union.toBytes(), first.toBytes());
+        assertWithinTolerance(100_000, first.estimate());
+    }
+
+    @Test
+    void restoresFromBytes() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("user-" + i);
+        }
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(sketch.toBytes(), restored.toBytes());
+    }
+
+    @Test
+    void rejectsMismatchedPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(12)));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[100]));
+    }
+
+    private static void assertWithinTolerance(long expected, long estimate) {
+        double relativeError = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(relativeError <= TOLERANCE,
+                "estimate " + estimate + " for " + expected + " is off by " + relativeError);
+    }
+}
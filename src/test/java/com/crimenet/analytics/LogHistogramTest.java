@@ -0,0 +1,77 @@
+package com.crimenet.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogHistogramTest {
+
+    private static final double[] QUANTILES = { 0, 0.1, 0.5, 0.9, 0.95, 0.99, 1 };
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        Random random = new Random(7);
+        double[] values = new double[50_000];
+        LogHistogram histogram = new LogHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // Minutes to hours, log-normally spread like resolution times
+            values[i] = Math.exp(8 + 2 * random.nextGaussian()) + 1;
+            histogram.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        for (double q : QUANTILES) {
+            double expected = values[(int) Math.floor(q * (values.length - 1))];
+            double actual = histogram.quantile(q);
+            assertTrue(Math.abs(actual - expected) <= LogHistogram.RELATIVE_ACCURACY * expected,
+                    "p" + q + ": " + actual + " vs " + expected);
+        }
+    }
+
+    @Test
+    void mergeEqualsOneHistogramOfAllValues() {
+        LogHistogram first = new LogHistogram();
+        LogHistogram second = new LogHistogram();
+        LogHistogram all = new LogHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            (i % 3 == 0 ? first : second).add(i * 37.0);
+            all.add(i * 37.0);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.count(), first.count());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), first.quantile(q));
+        }
+    }
+
+    @Test
+    void bucketCountsRestoreTheSameQuantiles() {
+        LogHistogram histogram = new LogHistogram().add(120_000).add(120_000).add(3_600_000);
+        LogHistogram restored = new LogHistogram()
+                .add(LogHistogram.bucketOf(120_000), 2)
+                .add(LogHistogram.bucketOf(3_600_000), 1);
+
+        assertEquals(histogram.quantile(0.5), restored.quantile(0.5));
+        assertEquals(histogram.quantile(1), restored.quantile(1));
+    }
+
+    @Test
+    void emptyHistogramHasNoQuantiles() {
+        assertTrue(Double.isNaN(new LogHistogram().quantile(0.5)));
+    }
+
+    @Test
+    void valuesBelowOneShareTheFirstBucket() {
+        LogHistogram histogram = new LogHistogram().add(0).add(0.5).add(1);
+
+        assertEquals(0, LogHistogram.bucketOf(0.5));
+        assertEquals(1.0, histogram.quantile(1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.crimenet.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 20;
+
+    @Test
+    void boundsHoldForOneSketch() {
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        feed(sketch, exact, new Random(1), 20_000);
+
+        assertBounds(sketch, exact, 20_000);
+    }
+
+    @Test
+    void boundsHoldAfterMerge() {
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSaving first = new SpaceSaving(CAPACITY);
+        SpaceSaving second = new SpaceSaving(CAPACITY);
+        feed(first, exact, new Random(2), 15_000);
+        // A different seed shifts which tail keys each sketch happens to track
+        feed(second, exact, new Random(3), 15_000);
+
+        assertBounds(first.merge(second), exact, 30_000);
+    }
+
+    @Test
+    void mergeKeepsKeysOnlyOneSideTracks() {
+        SpaceSaving first = new SpaceSaving(2).add("a", 10, 0).add("b", 4, 0);
+        SpaceSaving second = new SpaceSaving(2).add("a", 5, 0).add("c", 8, 0);
+
+        List<Map<String, Object>> top = first.merge(second).top(2);
+
+        assertEquals("a", top.get(0).get("key"));
+        assertEquals(15L, top.get(0).get("count"));
+        assertEquals(0L, top.get(0).get("error"));
+        // "c" may have been among the keys the first sketch evicted, up to its smallest count (4) times
+        assertEquals("c", top.get(1).get("key"));
+        assertEquals(12L, top.get(1).get("count"));
+        assertEquals(4L, top.get(1).get("error"));
+    }
+
+    // Zipf-like stream: a few heavy keys and a long tail
+    private static void feed(SpaceSaving sketch, Map<String, Long> exact, Random random, int items) {
+        for (int i = 0; i < items; i++) {
+            int rank = (int) Math.floor(Math.pow(500, random.nextDouble()));
+            String key = "location-" + rank;
+            sketch.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+    }
+
+    private static void assertBounds(SpaceSaving sketch, Map<String, Long> exact, long total) {
+        List<Map<String, Object>> top = sketch.top(CAPACITY);
+        Map<String, Map<String, Object>> tracked = new HashMap<>();
+        for (Map<String, Object> item : top) {
+            String key = (String) item.get("key");
+            long count = (Long) item.get("count");
+            long error = (Long) item.get("error");
+            long actual = exact.getOrDefault(key, 0L);
+            assertTrue(count >= actual, key + ": count " + count + " below actual " + actual);
+            assertTrue(count - error <= actual, key + ": count - error " + (count - error) + " above " + actual);
+            tracked.put(key, item);
+        }
+        exact.forEach((key, actual) -> {
+            if (actual > total / CAPACITY) {
+                assertTrue(tracked.containsKey(key), key + " with " + actual + " occurrences was dropped");
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.crimenet.service;
+
+import com.crimenet.model.CrimeReport;
+import com.crimenet.repository.DailyRollupRepository;
+import com.crimenet.repository.ReportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportExportServiceTest {
+
+    private final ReportRepository reportRepository = mock(ReportRepository.class);
+    private final ReportExportService exportService = new ReportExportService(reportRepository,
+            mock(DailyRollupRepository.class), new ObjectMapper(), 500);
+
+    @Test
+    void quotesFieldsWithSeparatorsQuotesAndLineBreaks() throws Exception {
+        CrimeReport report = report("r1");
+        report.setTitle("Theft, bicycle");
+        report.setDescription("He said \"stop\"\nthen ran");
+        report.setLocation("Gate 3\r\nNorth");
+
+        List<String> row = parseRow(exportCsv(report));
+
+        assertEquals("Theft, bicycle", row.get(10));
+        assertEquals("He said \"stop\"\nthen ran", row.get(11));
+        assertEquals("Gate 3\r\nNorth", row.get(12));
+    }
+
+    @Test
+    void prefixesTextThatStartsLikeAFormula() throws Exception {
+        CrimeReport report = report("r2");
+        report.setTitle("=HYPERLINK(\"http://example.com\")");
+        report.setDescription("+1 witness");
+        report.setLocation("@home");
+        report.setCategory("-THEFT");
+
+        String csv = exportCsv(report);
+        List<String> row = parseRow(csv);
+
+        assertEquals("'=HYPERLINK(\"http://example.com\")", row.get(10));
+        assertEquals("'+1 witness", row.get(11));
+        assertEquals("'@home", row.get(12));
+        assertEquals("'-THEFT", row.get(6));
+        assertTrue(csv.contains(",\"'=HYPERLINK(\"\"http://example.com\"\")\","), csv);
+    }
+
+    @Test
+    void leavesNumbersAndPlainTextUnquoted() throws Exception {
+        CrimeReport report = report("r3");
+        report.setTitle("Broken window");
+        report.setLatitude(-33.5);
+        report.setLongitude(151.25);
+
+        String line = exportCsv(report).split("\r\n")[1];
+
+        assertTrue(line.startsWith("r3,,,,,,,,,,Broken window,,,-33.5,151.25,false,"), line);
+    }
+
+    @Test
+    void leavesOutTheReporterOfAnonymousReports() throws Exception {
+        CrimeReport report = report("r4");
+        report.setUserId("user-1");
+        report.setIsAnonymous(true);
+
+        List<String> row = parseRow(exportCsv(report));
+
+        assertEquals("true", row.get(15));
+        assertEquals("", row.get(16));
+    }
+
+    private static CrimeReport report(String reportId) {
+        CrimeReport report = new CrimeReport();
+        report.setReportId(reportId);
+        return report;
+    }
+
+    private String exportCsv(CrimeReport report) throws Exception {
+        when(reportRepository.findPageCreatedBetween(isNull(), isNull(), any(), anyInt()))
+                .thenReturn(List.of(report));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ReportExportService.CSV, null, null, out);
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("reportId,caseNumber,createdAt,"), csv);
+        return csv;
+    }
+
+    // Minimal RFC 4180 reader for the first data row
+    private static List<String> parseRow(String csv) {
+        String data = csv.substring(csv.indexOf("\r\n") + 2);
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < data.length() && data.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' && data.startsWith("\r\n", i)) {
+                break;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}